@@ -0,0 +1,44 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.benchmarks;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.JwtKeyRing;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Map;
+
+/**
+ * Genera en memoria los pares de claves usados por los benchmarks, equivalentes a los
+ * que {@code KeyConfig} carga del keystore para cada algoritmo soportado.
+ */
+final class BenchmarkKeys {
+
+    private BenchmarkKeys() {
+    }
+
+    /**
+     * Crea un conjunto de claves JWT con una clave de firma del algoritmo indicado.
+     *
+     * @param algorithm RS256, ES256 o EdDSA.
+     * @return el conjunto de claves con la clave de firma generada.
+     * @throws GeneralSecurityException si el algoritmo no está disponible en la JVM.
+     */
+    static JwtKeyRing keyRing(String algorithm) throws GeneralSecurityException {
+        KeyPair keyPair = switch (algorithm) {
+            case "RS256" -> {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048);
+                yield generator.generateKeyPair();
+            }
+            case "ES256" -> {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+                generator.initialize(new ECGenParameterSpec("secp256r1"));
+                yield generator.generateKeyPair();
+            }
+            case "EdDSA" -> KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+            default -> throw new IllegalArgumentException("Algoritmo no soportado: " + algorithm);
+        };
+        return new JwtKeyRing("bench", keyPair, Map.of("bench", keyPair.getPublic()));
+    }
+}
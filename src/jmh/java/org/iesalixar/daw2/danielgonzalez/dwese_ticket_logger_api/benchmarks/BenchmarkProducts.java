@@ -0,0 +1,36 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Genera nombres de productos sintéticos para los benchmarks de búsqueda, combinando
+ * palabras frecuentes de un supermercado con una semilla fija.
+ */
+final class BenchmarkProducts {
+
+    private static final String[] TYPES = {"Leche", "Café", "Arroz", "Aceite", "Galletas", "Yogur", "Pan",
+            "Zumo", "Queso", "Jamón", "Atún", "Tomate", "Pasta", "Azúcar", "Harina", "Cerveza"};
+    private static final String[] VARIANTS = {"desnatada", "entera", "integral", "natural", "ecológico",
+            "sin gluten", "light", "clásico", "extra", "premium", "tostado", "bio"};
+    private static final String[] BRANDS = {"Hacendado", "Pascual", "Puleva", "Carbonell", "Gallo",
+            "Danone", "Nestlé", "Calvo", "Bimbo", "Mahou", "Lactalis", "Central Lechera"};
+
+    private BenchmarkProducts() {
+    }
+
+    /**
+     * @param count número de nombres a generar.
+     * @return los nombres; el de la posición i corresponde al producto con identificador i + 1.
+     */
+    static List<String> names(int count) {
+        Random random = new Random(42);
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(TYPES[random.nextInt(TYPES.length)] + " " + VARIANTS[random.nextInt(VARIANTS.length)]
+                    + " " + BRANDS[random.nextInt(BRANDS.length)] + " " + (random.nextInt(2000) + 100) + "g");
+        }
+        return names;
+    }
+}
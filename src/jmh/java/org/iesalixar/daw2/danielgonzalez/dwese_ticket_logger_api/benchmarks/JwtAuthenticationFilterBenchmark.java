@@ -0,0 +1,108 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.benchmarks;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.config.JwtAuthenticationFilter;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Role;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.User;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.UserRepository;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services.CustomUserDetailsService;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services.TokenRevocationService;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.JwtTokenCache;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.JwtUtil;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Level;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark de una invocación completa de {@link JwtAuthenticationFilter} con peticiones
+ * simuladas, para medir el coste de autenticación por petición.
+ *
+ * Parámetros:
+ * - {@code tokenCache}: si la cache de tokens verificados está activa o desactivada
+ *   (tamaño 0, por lo que cada petición verifica la firma).
+ * - {@code mode}: {@code database} carga el usuario con {@link CustomUserDetailsService}
+ *   (repositorio simulado, sin cache de usuarios) y {@code stateless} lo construye desde los claims.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"RS256", "ES256", "EdDSA"})
+    private String algorithm;
+
+    @Param({"enabled", "disabled"})
+    private String tokenCache;
+
+    @Param({"database", "stateless"})
+    private String mode;
+
+    private JwtAuthenticationFilter filter;
+
+    private String authorizationHeader;
+
+    @Setup
+    public void setUp() throws Exception {
+        JwtUtil jwtUtil = new JwtUtil(BenchmarkKeys.keyRing(algorithm), new SimpleMeterRegistry());
+        authorizationHeader = "Bearer " + jwtUtil.generateToken("admin", List.of("ROLE_ADMIN"));
+
+        // Repositorio simulado que devuelve siempre el mismo usuario
+        User user = new User();
+        user.setUsername("admin");
+        user.setPassword("$2a$10$abcdefghijklmnopqrstuuabcdefghijklmnopqrstuvwxyzABCDE");
+        user.setEnabled(true);
+        user.setRoles(Set.of(new Role("ROLE_ADMIN")));
+        UserRepository userRepository = Mockito.mock(UserRepository.class);
+        Mockito.when(userRepository.findByUsername("admin")).thenReturn(Optional.of(user));
+
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService(false, 0, Duration.ZERO);
+        ReflectionTestUtils.setField(userDetailsService, "userRepository", userRepository);
+
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "jwtTokenCache",
+                new JwtTokenCache("enabled".equals(tokenCache) ? 10_000 : 0));
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "tokenRevocationService", new TokenRevocationService());
+        ReflectionTestUtils.setField(filter, "statelessAuth", "stateless".equals(mode));
+    }
+
+    @TearDown(Level.Invocation)
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse doFilterInternal() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tickets");
+        request.addHeader("Authorization", authorizationHeader);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,66 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.benchmarks;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.JwtPrincipal;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.JwtUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de {@link JwtUtil}: generación, parseo y validación de tokens para cada
+ * algoritmo de firma soportado (RS256, ES256 y EdDSA).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    @Param({"RS256", "ES256", "EdDSA"})
+    private String algorithm;
+
+    private JwtUtil jwtUtil;
+
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        jwtUtil = new JwtUtil(BenchmarkKeys.keyRing(algorithm), new SimpleMeterRegistry());
+        token = jwtUtil.generateToken("admin", List.of("ROLE_ADMIN", "ROLE_USER"));
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken("admin", List.of("ROLE_ADMIN", "ROLE_USER"));
+    }
+
+    @Benchmark
+    public Claims extractAllClaims() {
+        return jwtUtil.extractAllClaims(token);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return jwtUtil.validateToken(token, "admin");
+    }
+
+    @Benchmark
+    public JwtPrincipal parseToken() {
+        return jwtUtil.parseToken(token);
+    }
+}
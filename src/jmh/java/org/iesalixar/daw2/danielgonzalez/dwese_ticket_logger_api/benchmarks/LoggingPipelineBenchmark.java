@@ -0,0 +1,159 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.benchmarks;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.Encoder;
+import org.hibernate.engine.jdbc.internal.FormatStyle;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.logging.logback.StructuredLogEncoder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark del coste de los logs en el hilo de una petición de la lista de tickets
+ * ({@code GET /api/tickets}), escribiendo en un fichero como la salida estándar de un contenedor.
+ *
+ * Modos ({@code mode}):
+ * - {@code dev-sync}: configuración anterior; dos mensajes INFO del controlador con el patrón de
+ *   consola de Spring Boot, escritos en el hilo de la petición, y el eco de la sentencia SQL
+ *   formateada ({@code show-sql} y {@code format_sql}) en un {@link PrintStream} como {@code System.out}.
+ * - {@code dev-async}: lo mismo, con los mensajes escritos desde el {@link AsyncAppender} de logback-spring.xml.
+ * - {@code prod}: perfil prod; una línea de acceso en JSON (formato logstash) por el {@link AsyncAppender},
+ *   sin eco de SQL.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class LoggingPipelineBenchmark {
+
+    // Patrón de consola por defecto de Spring Boot (sin colores)
+    private static final String CONSOLE_PATTERN = "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p ${PID:- } --- [ticket-logger-api] "
+            + "[%15.15t] %-40.40logger{39} : %m%n";
+
+    // Sentencia de la lista de tickets tal como la genera Hibernate
+    private static final String SQL = "select t1_0.id,t1_0.date,t1_0.discount,t1_0.total,l1_0.id,l1_0.address,"
+            + "l1_0.city,s1_0.name from tickets t1_0 join locations l1_0 on l1_0.id=t1_0.location_id join "
+            + "supermarkets s1_0 on s1_0.id=l1_0.supermarket_id order by t1_0.date desc fetch first ? rows only";
+
+    @Param({"dev-sync", "dev-async", "prod"})
+    private String mode;
+
+    private LoggerContext context;
+
+    private Logger controllerLogger;
+
+    private Logger accessLogger;
+
+    private PrintStream sqlEcho;
+
+    private File logFile;
+
+    private File sqlFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        logFile = File.createTempFile("benchmark-log", ".log");
+        sqlFile = File.createTempFile("benchmark-sql", ".log");
+        context = new LoggerContext();
+        context.setMDCAdapter(new LogbackMDCAdapter());
+        context.putObject(Environment.class.getName(), new StandardEnvironment());
+        context.start();
+
+        FileAppender<ILoggingEvent> file = new FileAppender<>();
+        file.setContext(context);
+        file.setFile(logFile.getAbsolutePath());
+        file.setEncoder(mode.equals("prod") ? structuredEncoder() : patternEncoder());
+        file.start();
+
+        Appender<ILoggingEvent> appender = file;
+        if (!mode.equals("dev-sync")) {
+            AsyncAppender async = new AsyncAppender();
+            async.setContext(context);
+            async.setQueueSize(8192);
+            // Sin descartar eventos: se mide el ritmo sostenido, no el de una cola llena que descarta
+            async.setDiscardingThreshold(0);
+            async.setNeverBlock(false);
+            async.addAppender(file);
+            async.start();
+            appender = async;
+        }
+        Logger root = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        root.addAppender(appender);
+        controllerLogger = context.getLogger("org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.controllers.TicketProductController");
+        accessLogger = context.getLogger("org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.config.AccessLogFilter");
+        // System.out: PrintStream con vaciado automático en cada línea
+        sqlEcho = new PrintStream(new BufferedOutputStream(new FileOutputStream(sqlFile), 128), true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.stop();
+        sqlEcho.close();
+        logFile.delete();
+        sqlFile.delete();
+    }
+
+    @Benchmark
+    public void ticketListRequest() {
+        if (mode.equals("prod")) {
+            accessLogger.atInfo()
+                    .addKeyValue("method", "GET")
+                    .addKeyValue("path", "/api/tickets")
+                    .addKeyValue("status", 200)
+                    .addKeyValue("durationMs", 3)
+                    .addKeyValue("route", "/api/tickets")
+                    .addKeyValue("sqlStatements", 1)
+                    .addKeyValue("client", "127.0.0.1")
+                    .log("{} {} {}", "GET", "/api/tickets", 200);
+            return;
+        }
+        controllerLogger.info("Solicitando tickets paginados: página {}, tamaño {}", 0, 20);
+        sqlEcho.println("Hibernate: " + FormatStyle.BASIC.getFormatter().format(SQL));
+        controllerLogger.info("Se han encontrado {} tickets en la página actual.", 20);
+    }
+
+    private Encoder<ILoggingEvent> patternEncoder() {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(CONSOLE_PATTERN);
+        encoder.start();
+        return encoder;
+    }
+
+    private Encoder<ILoggingEvent> structuredEncoder() {
+        StructuredLogEncoder encoder = new StructuredLogEncoder();
+        encoder.setContext(context);
+        encoder.setFormat("logstash");
+        encoder.start();
+        return encoder;
+    }
+}
@@ -0,0 +1,98 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.benchmarks;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.ProductSearchIndex;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.TextNormalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks de la búsqueda de productos por nombre: el índice {@link ProductSearchIndex}
+ * frente a un recorrido completo que compara cada nombre como haría {@code LIKE '%q%'}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class ProductSearchBenchmark {
+
+    @Param("1000000")
+    private int products;
+
+    private ProductSearchIndex index;
+
+    // Nombres normalizados, equivalentes a la columna que recorre el LIKE
+    private List<String> names;
+
+    @Setup
+    public void setUp() {
+        index = new ProductSearchIndex();
+        names = new ArrayList<>(products);
+        List<String> generated = BenchmarkProducts.names(products);
+        for (int i = 0; i < generated.size(); i++) {
+            index.put(i + 1, generated.get(i));
+            names.add(TextNormalizer.normalize(generated.get(i)));
+        }
+    }
+
+    @Benchmark
+    public ProductSearchIndex.Result indexSingleTerm() {
+        return index.search("cafe", 0, 20, 1000);
+    }
+
+    @Benchmark
+    public ProductSearchIndex.Result indexTwoTerms() {
+        return index.search("leche pasc", 0, 20, 1000);
+    }
+
+    @Benchmark
+    public ProductSearchIndex.Result indexRareCombination() {
+        return index.search("atun bio calvo 150", 0, 20, 1000);
+    }
+
+    @Benchmark
+    public int likeScanSingleTerm() {
+        return likeScan("cafe");
+    }
+
+    @Benchmark
+    public int likeScanTwoTerms() {
+        return likeScan("leche pasc");
+    }
+
+    /**
+     * Recorre todos los nombres contando las coincidencias, como el plan de un {@code LIKE '%q%'}
+     * que no puede usar índices.
+     */
+    private int likeScan(String query) {
+        String[] terms = TextNormalizer.normalize(query).split(" ");
+        int matches = 0;
+        for (String name : names) {
+            boolean match = true;
+            for (String term : terms) {
+                if (!name.contains(term)) {
+                    match = false;
+                    break;
+                }
+            }
+            if (match) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
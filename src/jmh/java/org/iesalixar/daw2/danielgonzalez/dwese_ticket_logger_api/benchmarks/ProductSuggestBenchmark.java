@@ -0,0 +1,66 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.benchmarks;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.ProductDTO;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.ProductSuggestTrie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks del autocompletado de productos ({@link ProductSuggestTrie}) con las consultas
+ * que envía la interfaz al ir escribiendo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class ProductSuggestBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int products;
+
+    private ProductSuggestTrie trie;
+
+    @Setup
+    public void setUp() {
+        trie = new ProductSuggestTrie();
+        List<String> names = BenchmarkProducts.names(products);
+        for (int i = 0; i < names.size(); i++) {
+            trie.put(new ProductDTO((long) i + 1, names.get(i), BigDecimal.ONE));
+        }
+    }
+
+    @Benchmark
+    public List<ProductDTO> oneLetter() {
+        return trie.suggest("c", 10);
+    }
+
+    @Benchmark
+    public List<ProductDTO> firstWord() {
+        return trie.suggest("cafe", 10);
+    }
+
+    @Benchmark
+    public List<ProductDTO> middleWord() {
+        return trie.suggest("pasc", 10);
+    }
+
+    @Benchmark
+    public List<ProductDTO> longQuery() {
+        return trie.suggest("Café ecológico Nestlé 1", 10);
+    }
+}
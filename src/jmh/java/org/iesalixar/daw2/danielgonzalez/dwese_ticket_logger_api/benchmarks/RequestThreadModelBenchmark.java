@@ -0,0 +1,180 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.benchmarks;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.config.ConnectionPoolBulkheadFilter;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Benchmark de los modelos de hilos para atender peticiones de tickets que se bloquean en la
+ * base de datos, con ráfagas de peticiones simultáneas.
+ *
+ * Cada petición simulada espera {@code outsideMs} fuera de la base de datos (filtros, envío de la
+ * respuesta al cliente) y ocupa una conexión durante {@code QUERY_MS}; el pool de conexiones es un
+ * semáforo de {@code POOL_SIZE} permisos con el timeout por defecto de Hikari.
+ *
+ * Modos ({@code mode}):
+ * - {@code platform}: pool fijo de 200 hilos con cola, como el conector de Tomcat por defecto.
+ * - {@code virtual}: un hilo virtual por petición, sin límite.
+ * - {@code virtual-bulkhead}: un hilo virtual por petición detrás de {@link ConnectionPoolBulkheadFilter}.
+ *
+ * El tiempo de cada ráfaga da el rendimiento; las peticiones atendidas y las rechazadas con 503 se
+ * publican junto al resultado como contadores auxiliares ({@code accepted} y {@code rejected}),
+ * sumados sobre las iteraciones medidas.
+ *
+ * Solo mide la espera por las conexiones: no incluye el coste de CPU de la petición (seguridad,
+ * Hibernate, serialización). Con carga HTTP real sobre la aplicación y pocos procesadores ese coste
+ * es el cuello de botella y los tres modos quedan dentro del ruido de la medida.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestThreadModelBenchmark {
+
+    // Conexiones del pool, como spring.datasource.hikari.maximum-pool-size
+    private static final int POOL_SIZE = 10;
+
+    // Tiempo con la conexión ocupada por petición
+    private static final long QUERY_MS = 2;
+
+    // Timeout por defecto de Hikari para obtener una conexión
+    private static final long CONNECTION_TIMEOUT_MS = 30_000;
+
+    @Param({"platform", "virtual", "virtual-bulkhead"})
+    private String mode;
+
+    @Param({"500", "5000"})
+    private int clients;
+
+    @Param({"1", "50"})
+    private long outsideMs;
+
+    private ExecutorService executor;
+
+    private ConnectionPoolBulkheadFilter filter;
+
+    private Semaphore connectionPool;
+
+    /**
+     * Peticiones atendidas y rechazadas en cada iteración, publicadas por JMH con el resultado.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+
+        public int accepted;
+
+        public int rejected;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            accepted = 0;
+            rejected = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        executor = mode.equals("platform") ? Executors.newFixedThreadPool(200) : Executors.newVirtualThreadPerTaskExecutor();
+        connectionPool = new Semaphore(POOL_SIZE, true);
+        if (mode.equals("virtual-bulkhead")) {
+            filter = new ConnectionPoolBulkheadFilter();
+            ReflectionTestUtils.setField(filter, "maxConcurrent", 0);
+            ReflectionTestUtils.setField(filter, "maxWait", Duration.ofMillis(500));
+            ReflectionTestUtils.setField(filter, "connectionPoolSize", POOL_SIZE);
+            filter.init();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public int burst(Counters counters) throws Exception {
+        CountDownLatch done = new CountDownLatch(clients);
+        AtomicInteger rejected = new AtomicInteger();
+        for (int i = 0; i < clients; i++) {
+            executor.execute(() -> {
+                try {
+                    if (!handle()) {
+                        rejected.incrementAndGet();
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        counters.accepted += clients - rejected.get();
+        counters.rejected += rejected.get();
+        return rejected.get();
+    }
+
+    /**
+     * Atiende una petición en el modo configurado.
+     *
+     * @return false si se ha rechazado con 503.
+     */
+    private boolean handle() {
+        if (filter == null) {
+            ticketRequest();
+            return true;
+        }
+        try {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tickets/1");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            filter.doFilter(request, response, (req, res) -> ticketRequest());
+            return response.getStatus() != 503;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Simula una petición de tickets: trabajo bloqueante fuera de la base de datos y una consulta.
+     */
+    private void ticketRequest() {
+        LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(outsideMs));
+        try {
+            if (!connectionPool.tryAcquire(CONNECTION_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Timeout al obtener una conexión");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(QUERY_MS));
+        } finally {
+            connectionPool.release();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.config;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registra una línea de acceso por petición, con sus datos como pares clave-valor
+ * (method, path, route, status, durationMs, sqlStatements, client) para que el formato
+ * estructurado de los logs los escriba como campos JSON.
+ *
+ * Sustituye en producción a los mensajes INFO de cada controlador. Se ejecuta antes que el
+ * resto de filtros de la aplicación para registrar también las peticiones rechazadas por ellos.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@ConditionalOnProperty(name = "logging.access.enabled", havingValue = "true")
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessLogFilter.class);
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // La respuesta se completa en otro hilo (por ejemplo, el login)
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        logAccess(request, response, start);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                logAccess(request, response, start);
+            }
+        }
+    }
+
+    private void logAccess(HttpServletRequest request, HttpServletResponse response, long start) {
+        if (!logger.isInfoEnabled()) {
+            return;
+        }
+        LoggingEventBuilder event = logger.atInfo()
+                .addKeyValue("method", request.getMethod())
+                .addKeyValue("path", request.getRequestURI())
+                .addKeyValue("status", response.getStatus())
+                .addKeyValue("durationMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (route != null) {
+            event = event.addKeyValue("route", route);
+        }
+        Object sqlStatements = request.getAttribute(SqlBudgetInterceptor.SQL_STATEMENTS_ATTRIBUTE);
+        if (sqlStatements != null) {
+            event = event.addKeyValue("sqlStatements", sqlStatements);
+        }
+        event.addKeyValue("client", request.getRemoteAddr())
+                .log("{} {} {}", request.getMethod(), request.getRequestURI(), response.getStatus());
+    }
+}
@@ -0,0 +1,96 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limita las peticiones a la API que se atienden a la vez cuando cada petición tiene su propio
+ * hilo virtual.
+ *
+ * Con hilos virtuales Tomcat ya no limita la concurrencia (no hay un pool de 200 hilos), así que
+ * miles de peticiones acabarían esperando en la cola de Hikari, que solo tiene unas pocas conexiones,
+ * hasta agotar su {@code connection-timeout}. Este filtro deja pasar como máximo
+ * {@code http.backpressure.max-concurrent} peticiones; las siguientes esperan como mucho
+ * {@code http.backpressure.max-wait} y, si no hay hueco, se responden con 503 de inmediato.
+ *
+ * Se ejecuta antes que Spring Security para cubrir también la carga del usuario del token, pero
+ * después del filtro de observación de Spring y de {@link AccessLogFilter}, para que los 503 aparezcan en
+ * {@code http.server.requests} y en el log de acceso.
+ * El login no se limita aquí: tiene su propio pool acotado ({@link LoginExecutorConfig}).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 3)
+@ConditionalOnProperty(name = "http.backpressure.enabled", havingValue = "true")
+public class ConnectionPoolBulkheadFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPoolBulkheadFilter.class);
+
+    // Peticiones atendidas a la vez (0 = veinte por cada conexión del pool, 200 con el pool por defecto
+    // como los hilos de Tomcat: una petición pasa buena parte de su tiempo fuera de la base de datos)
+    @Value("${http.backpressure.max-concurrent:0}")
+    private int maxConcurrent;
+
+    // Tiempo máximo que una petición espera un hueco antes de rechazarla
+    @Value("${http.backpressure.max-wait:500ms}")
+    private Duration maxWait;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
+    private Semaphore permits;
+
+    @PostConstruct
+    public void init() {
+        int limit = maxConcurrent > 0 ? maxConcurrent : connectionPoolSize * 20;
+        permits = new Semaphore(limit, true);
+        logger.info("Control de concurrencia de la API activo: {} peticiones a la vez, espera máxima de {} ms",
+                limit, maxWait.toMillis());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith("/api/") || path.equals("/api/v1/authenticate");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            // Se rechaza sin ocupar una conexión ni esperar al timeout de Hikari
+            logger.debug("API saturada, se rechaza {} {}", request.getMethod(), request.getRequestURI());
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader("Retry-After", "1");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
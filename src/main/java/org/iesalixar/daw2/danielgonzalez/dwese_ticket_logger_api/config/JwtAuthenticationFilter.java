@@ -1,16 +1,21 @@
 package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.config;
 
-import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services.CustomUserDetailsService;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services.TokenRevocationService;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.JwtPrincipal;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.JwtTokenCache;
 import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -24,9 +29,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private JwtUtil jwtUtil; // Utilidad para generar, extraer y validar tokens JWT
 
+    @Autowired
+    private JwtTokenCache jwtTokenCache; // Cache de tokens cuya firma ya ha sido verificada
+
     @Autowired
     private CustomUserDetailsService userDetailsService; // Servicio personalizado para cargar detalles del usuario
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService; // Usuarios deshabilitados y contraseñas cambiadas en memoria
+
+    // Si está activo, el usuario autenticado se construye solo a partir de los claims, sin consultar la base de datos
+    @Value("${jwt.auth.stateless:false}")
+    private boolean statelessAuth;
+
+    /**
+     * Los endpoints de Actuator (métricas y salud) no se autentican con JWT.
+     */
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith(request.getContextPath() + "/actuator/");
+    }
+
     /**
      * Método principal del filtro que intercepta cada solicitud HTTP entrante
      * y valida el token JWT si está presente en el encabezado de autorización.
@@ -49,28 +72,38 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // 3. Extraer el token JWT del encabezado (sin el prefijo "Bearer ")
         jwt = authHeader.substring(7); // Elimina los primeros 7 caracteres ("Bearer ")
 
-        // 4. Extraer el nombre de usuario (claim "sub") del token
-        username = jwtUtil.extractUsername(jwt);
+        // 4. Obtener el principal verificado del token: primero desde la cache y, si no está,
+        //    verificando la firma una única vez y guardando el resultado hasta su expiración
+        JwtPrincipal principal = jwtTokenCache.get(jwt);
+        if (principal == null) {
+            principal = jwtUtil.parseToken(jwt);
+            jwtTokenCache.put(jwt, principal);
+        }
+
+        // 5. Extraer el nombre de usuario (claim "sub") del principal
+        username = principal.getSubject();
 
-        // 5. Verificar si:
+        // 6. Verificar si:
         // - El nombre de usuario extraído no es nulo
         // - No hay una autenticación existente en el contexto de seguridad
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-            // 6. Cargar los detalles del usuario desde el servicio personalizado
-            var userDetails = userDetailsService.loadUserByUsername(username);
-
-            // 7. Validar el token JWT con el nombre de usuario del usuario cargado
-            if (jwtUtil.validateToken(jwt, userDetails.getUsername())) {
+            // 7. Obtener los detalles del usuario:
+            // - En modo sin estado se construyen a partir de los claims verificados, descartando
+            //   los tokens revocados (usuario deshabilitado o contraseña cambiada)
+            // - En caso contrario se cargan desde el servicio personalizado
+            UserDetails userDetails;
+            if (statelessAuth) {
+                userDetails = tokenRevocationService.isRevoked(principal) ? null : buildUserDetails(principal);
+            } else {
+                userDetails = userDetailsService.loadUserByUsername(username);
+            }
 
-                // 8. Extraer los claims del token (como los roles)
-                Claims claims = jwtUtil.extractAllClaims(jwt);
+            // 8. Validar el principal del token con el nombre de usuario del usuario obtenido
+            if (userDetails != null && jwtUtil.validateToken(principal, userDetails.getUsername())) {
 
-                // 9. Extraer los roles del claim "roles" y convertirlos en GrantedAuthority
-                List<String> roles = claims.get("roles", List.class); // Obtiene la lista de roles del token
-                List<SimpleGrantedAuthority> authorities = roles.stream()
-                        .map(SimpleGrantedAuthority::new) // Convierte cada rol en SimpleGrantedAuthority
-                        .toList();
+                // 9. Convertir los roles del claim "roles" en GrantedAuthority
+                List<SimpleGrantedAuthority> authorities = toAuthorities(principal);
 
                 // 10. Crear un objeto UsernamePasswordAuthenticationToken con los detalles del usuario y sus roles
                 UsernamePasswordAuthenticationToken authToken =
@@ -85,4 +118,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         // 13. Continuar con el siguiente filtro en la cadena de filtros
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * Construye los detalles del usuario a partir del principal verificado del token,
+     * sin consultar la base de datos.
+     *
+     * @param principal el principal verificado del token JWT.
+     * @return los detalles del usuario autenticado.
+     */
+    private UserDetails buildUserDetails(JwtPrincipal principal) {
+        return User.withUsername(principal.getSubject())
+                .password("") // La contraseña no es necesaria una vez verificado el token
+                .authorities(toAuthorities(principal))
+                .build();
+    }
+
+    /**
+     * Convierte los roles del principal en una lista de GrantedAuthority.
+     *
+     * @param principal el principal verificado del token JWT.
+     * @return las autoridades correspondientes a los roles del token.
+     */
+    private List<SimpleGrantedAuthority> toAuthorities(JwtPrincipal principal) {
+        return principal.getRoles().stream()
+                .map(SimpleGrantedAuthority::new) // Convierte cada rol en SimpleGrantedAuthority
+                .toList();
+    }
 }
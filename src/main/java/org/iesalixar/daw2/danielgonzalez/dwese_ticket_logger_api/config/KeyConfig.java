@@ -7,6 +7,14 @@ import java.security.KeyPair;
 import java.security.KeyStore;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.JwtKeyRing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -14,32 +22,86 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class KeyConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(KeyConfig.class);
+
     @Value("${jwt.keystore.path}") // Ruta del keystore
     private String keystorePath;
 
     @Value("${jwt.keystore.password}") // Contraseña del keystore
     private String keystorePassword;
 
-    @Value("${jwt.keystore.alias}") // Alias del par de claves
+    @Value("${jwt.keystore.type:JKS}") // Tipo del keystore (JKS o PKCS12)
+    private String keystoreType;
+
+    @Value("${jwt.keystore.alias}") // Alias del par de claves con el que se firman los tokens
     private String keystoreAlias;
 
+    @Value("${jwt.keystore.verification-aliases:}") // Alias adicionales aceptados al verificar (rotación de claves)
+    private List<String> verificationAliases;
+
     /**
-     * Carga el par de claves (privada y pública) desde el keystore configurado.
+     * Carga el conjunto de claves JWT desde el keystore configurado.
+     *
+     * La clave de firma es la del alias {@code jwt.keystore.alias} y puede ser RSA, EC (P-256)
+     * o Ed25519; el algoritmo (RS256, ES256 o EdDSA) se deduce del tipo de clave. Las claves
+     * públicas de {@code jwt.keystore.verification-aliases} se aceptan también al verificar,
+     * lo que permite rotar la clave de firma sin invalidar los tokens ya emitidos.
+     * El alias de cada clave se usa como su identificador ({@code kid}).
      *
-     * @return KeyPair con la clave privada y pública.
+     * @return JwtKeyRing con la clave de firma y las claves de verificación.
      * @throws GeneralSecurityException si falla la carga del keystore o las claves.
      * @throws IOException si no se puede leer el fichero del keystore.
      */
     @Bean
-    public KeyPair jwtKeyPair() throws GeneralSecurityException, IOException {
-        KeyStore keyStore = KeyStore.getInstance("JKS");
+    public JwtKeyRing jwtKeyRing() throws GeneralSecurityException, IOException {
+        KeyStore keyStore = KeyStore.getInstance(keystoreType);
         try (FileInputStream fis = new FileInputStream(keystorePath)) {
             keyStore.load(fis, keystorePassword.toCharArray());
         }
 
         PrivateKey privateKey = (PrivateKey) keyStore.getKey(keystoreAlias, keystorePassword.toCharArray());
-        PublicKey publicKey = keyStore.getCertificate(keystoreAlias).getPublicKey();
+        PublicKey publicKey = loadPublicKey(keyStore, keystoreAlias);
+        KeyPair signingKeyPair = new KeyPair(publicKey, privateKey);
 
-        return new KeyPair(publicKey, privateKey);
+        Map<String, PublicKey> verificationKeys = new LinkedHashMap<>();
+        verificationKeys.put(keystoreAlias, publicKey);
+        for (String alias : verificationAliases) {
+            String trimmed = alias.trim();
+            if (!trimmed.isEmpty() && !trimmed.equals(keystoreAlias)) {
+                verificationKeys.put(trimmed, loadPublicKey(keyStore, trimmed));
+            }
+        }
+
+        JwtKeyRing keyRing = new JwtKeyRing(keystoreAlias, signingKeyPair, verificationKeys);
+        logger.info("Claves JWT cargadas: firma con '{}' ({}), verificación con {}",
+                keystoreAlias, keyRing.getSignatureAlgorithm().getId(), verificationKeys.keySet());
+        return keyRing;
+    }
+
+    /**
+     * Expone el par de claves (privada y pública) de firma activo.
+     *
+     * @param jwtKeyRing el conjunto de claves JWT cargado del keystore.
+     * @return KeyPair con la clave privada y pública de firma.
+     */
+    @Bean
+    public KeyPair jwtKeyPair(JwtKeyRing jwtKeyRing) {
+        return jwtKeyRing.getSigningKeyPair();
+    }
+
+    /**
+     * Obtiene la clave pública del certificado asociado a un alias del keystore.
+     *
+     * @param keyStore el keystore cargado.
+     * @param alias el alias de la clave.
+     * @return la clave pública del alias.
+     * @throws GeneralSecurityException si el alias no existe en el keystore.
+     */
+    private PublicKey loadPublicKey(KeyStore keyStore, String alias) throws GeneralSecurityException {
+        Certificate certificate = keyStore.getCertificate(alias);
+        if (certificate == null) {
+            throw new GeneralSecurityException("No existe el alias '" + alias + "' en el keystore.");
+        }
+        return certificate.getPublicKey();
     }
 }
@@ -0,0 +1,51 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Configura el pool de hilos dedicado a verificar contraseñas en el login.
+ *
+ * BCrypt es costoso en CPU, por lo que las verificaciones se ejecutan fuera de los hilos
+ * de Tomcat, en un pool de tamaño fijo con una cola acotada. Cuando la cola se llena la
+ * tarea se rechaza inmediatamente para que el controlador responda con 429.
+ * Sigue usando hilos de plataforma aunque se activen los hilos virtuales: al ser un trabajo
+ * de CPU, más hilos no aumentarían el rendimiento.
+ */
+@Configuration
+public class LoginExecutorConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoginExecutorConfig.class);
+
+    // Número de hilos del pool (por defecto, uno por procesador al ser un trabajo de CPU)
+    @Value("${security.login.pool-size:0}")
+    private int poolSize;
+
+    // Número máximo de verificaciones en espera antes de rechazar nuevas peticiones
+    @Value("${security.login.queue-capacity:100}")
+    private int queueCapacity;
+
+    /**
+     * Crea el executor con tamaño y cola acotados que rechaza las tareas cuando está lleno.
+     *
+     * @return el executor para las verificaciones de contraseña.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor loginExecutor() {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("login-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy()); // Rechazo inmediato si está lleno
+        logger.info("Pool de verificación de contraseñas configurado con {} hilos y cola de {}", threads, queueCapacity);
+        return executor;
+    }
+}
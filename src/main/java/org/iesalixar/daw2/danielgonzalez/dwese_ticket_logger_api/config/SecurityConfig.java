@@ -4,20 +4,30 @@ import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services.Custom
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
 /**
  * Configura la seguridad de la aplicación, definiendo autenticación y autorización
  * para diferentes roles de usuario, y gestionando la política de sesiones.
@@ -35,6 +45,84 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    // Coste (log2 de las rondas) de BCrypt; si se cambia, las contraseñas se recodifican en el siguiente login
+    @Value("${security.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    // Credenciales HTTP Basic del scraping de /actuator/prometheus; sin contraseña el endpoint se deniega
+    @Value("${metrics.scrape.username:prometheus}")
+    private String scrapeUsername;
+
+    @Value("${metrics.scrape.password:}")
+    private String scrapePassword;
+
+    /**
+     * Configura la seguridad de los endpoints de Actuator (salud y métricas en formato Prometheus).
+     *
+     * Se evalúa antes que la cadena de la API y no incluye el filtro JWT ni consulta la base de datos.
+     * La salud es pública; las métricas, que describen el tráfico y los datos de la aplicación, exigen
+     * HTTP Basic con el usuario de {@code metrics.scrape.*}, comprobado en memoria sin BCrypt para
+     * que el scraping periódico no pague el coste de un login. Sin contraseña configurada las métricas
+     * se deniegan. El resto de endpoints se deniega.
+     *
+     * @param http instancia de {@link HttpSecurity} para configurar la seguridad.
+     * @return la cadena de seguridad de {@code /actuator/**}.
+     * @throws Exception si ocurre un error en la configuración de seguridad.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorSecurityFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher("/actuator/**")
+                .csrf(csrf -> csrf.disable())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authorizeHttpRequests(auth -> {
+                    auth.requestMatchers("/actuator/health/**").permitAll();
+                    if (scrapePassword.isEmpty()) {
+                        logger.warn("metrics.scrape.password no está configurada: /actuator/prometheus queda deshabilitado.");
+                        auth.requestMatchers("/actuator/prometheus").denyAll();
+                    } else {
+                        auth.requestMatchers("/actuator/prometheus").hasRole("METRICS");
+                    }
+                    auth.anyRequest().denyAll();
+                })
+                .authenticationManager(scrapeAuthenticationManager())
+                // 401 sin sendError: el despacho a /error pasaría por la cadena de la API y acabaría en 403
+                .httpBasic(basic -> basic.authenticationEntryPoint((request, response, e) -> {
+                    response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Basic realm=\"actuator\"");
+                    response.setStatus(HttpStatus.UNAUTHORIZED.value());
+                }));
+
+        return http.build();
+    }
+
+    /**
+     * Autentica el usuario del scraping de métricas, definido en memoria. La contraseña se compara
+     * en tiempo constante con la configurada, sin BCrypt, porque no se almacena en ningún sitio.
+     *
+     * @return el gestor de autenticación de la cadena de Actuator.
+     */
+    private AuthenticationManager scrapeAuthenticationManager() {
+        InMemoryUserDetailsManager users = new InMemoryUserDetailsManager(User.withUsername(scrapeUsername)
+                .password(scrapePassword)
+                .roles("METRICS")
+                .build());
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(users);
+        provider.setPasswordEncoder(new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return MessageDigest.isEqual(rawPassword.toString().getBytes(StandardCharsets.UTF_8),
+                        encodedPassword.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+        return new ProviderManager(provider);
+    }
+
     /**
      * Configura el filtro de seguridad para las solicitudes HTTP, especificando las
      * rutas permitidas y los roles necesarios para acceder a diferentes endpoints.
@@ -72,25 +160,30 @@ public class SecurityConfig {
      * Configura el proveedor de autenticación para usar el servicio de detalles de usuario
      * personalizado y el codificador de contraseñas.
      *
+     * Registra además el servicio como {@code UserDetailsPasswordService}, de modo que si la
+     * contraseña almacenada usa un coste de BCrypt distinto al configurado se recodifica
+     * de forma transparente tras un login correcto.
+     *
      * @return una instancia de {@link DaoAuthenticationProvider} para la autenticación.
      */
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setUserDetailsPasswordService(userDetailsService); // Recodifica al cambiar el coste
         return authProvider;
     }
 
     /**
      * Configura el codificador de contraseñas para cifrar las contraseñas de los usuarios
-     * utilizando BCrypt.
+     * utilizando BCrypt con el coste configurado en {@code security.bcrypt.strength}.
      *
      * @return una instancia de {@link PasswordEncoder} que utiliza BCrypt para cifrar contraseñas.
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
         logger.info("Entrando en el método passwordEncoder");
-        PasswordEncoder encoder = new BCryptPasswordEncoder();
+        PasswordEncoder encoder = new BCryptPasswordEncoder(bcryptStrength);
         logger.info("Saliendo del método passwordEncoder");
         return encoder;
     }
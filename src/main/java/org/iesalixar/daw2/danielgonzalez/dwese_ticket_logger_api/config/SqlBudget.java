@@ -0,0 +1,27 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Número máximo de sentencias SQL que puede ejecutar un endpoint al atender una petición
+ * (sin contar la autenticación). Si no se indica se aplica {@code sql.budget.default}.
+ *
+ * Al superarlo se registra un aviso y, con {@code sql.budget.enforce=true}, la petición falla
+ * aunque el controlador capture la excepción ({@link SqlBudgetResponseAdvice}).
+ *
+ * @see SqlBudgetInterceptor
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudget {
+
+    /**
+     * @return el número máximo de sentencias.
+     */
+    int value();
+}
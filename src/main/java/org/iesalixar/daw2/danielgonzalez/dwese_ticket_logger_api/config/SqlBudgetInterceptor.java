@@ -0,0 +1,99 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.SqlStatementCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Cuenta las sentencias SQL de cada petición a la API, desde que empieza el controlador hasta
+ * que se escribe la respuesta (incluida la serialización, donde aparecen las cargas perezosas).
+ *
+ * - Publica el número de sentencias por ruta en la métrica {@code sql.statements}.
+ * - Avisa cuando una misma forma de sentencia se repite {@code sql.n-plus-one.threshold} veces
+ *   o más (posible N+1), y cuando se supera el presupuesto del endpoint ({@link SqlBudget}).
+ * - Con {@code sql.budget.enforce=true} la sentencia que supera el presupuesto falla, de modo
+ *   que los tests detectan las regresiones.
+ */
+@Component
+public class SqlBudgetInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlBudgetInterceptor.class);
+
+    // Atributo de la petición con el número de sentencias ejecutadas (para el log de acceso)
+    public static final String SQL_STATEMENTS_ATTRIBUTE = SqlBudgetInterceptor.class.getName() + ".statements";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Presupuesto de los endpoints sin @SqlBudget (0 = sin límite)
+    @Value("${sql.budget.default:0}")
+    private int defaultBudget;
+
+    // Si es true, superar el presupuesto hace fallar la petición
+    @Value("${sql.budget.enforce:false}")
+    private boolean enforce;
+
+    // Ejecuciones de una misma forma de sentencia a partir de las que se avisa de un posible N+1
+    @Value("${sql.n-plus-one.threshold:5}")
+    private int nPlusOneThreshold;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            SqlBudget budget = handlerMethod.getMethodAnnotation(SqlBudget.class);
+            SqlStatementCounter.start(budget != null ? budget.value() : defaultBudget, enforce);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // La petición continúa en otro hilo: se descarta el contador de este
+        SqlStatementCounter.stop();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        SqlStatementCounter counter = SqlStatementCounter.stop();
+        if (counter == null) {
+            return;
+        }
+        request.setAttribute(SQL_STATEMENTS_ATTRIBUTE, counter.getTotal());
+        String route = request.getMethod() + " " + routeOf(request);
+        DistributionSummary.builder("sql.statements")
+                .description("Sentencias SQL ejecutadas por petición")
+                .tag("method", request.getMethod())
+                .tag("uri", routeOf(request))
+                .register(meterRegistry)
+                .record(counter.getTotal());
+        logger.debug("{}: {} sentencias SQL", route, counter.getTotal());
+
+        Map<String, Integer> repeated = counter.getRepeated(nPlusOneThreshold);
+        repeated.forEach((shape, count) ->
+                logger.warn("Posible N+1 en {}: sentencia ejecutada {} veces: {}", route, count, shape));
+        if (counter.isOverBudget()) {
+            logger.warn("Presupuesto SQL superado en {}: {} sentencias (máximo {})",
+                    route, counter.getTotal(), counter.getBudget());
+        }
+    }
+
+    /**
+     * @return la plantilla de la ruta atendida (por ejemplo {@code /api/tickets/{id}}) o UNKNOWN.
+     */
+    private String routeOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : "UNKNOWN";
+    }
+}
@@ -0,0 +1,40 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.config;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.SqlStatementCounter;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Hace fallar la petición que ha superado su presupuesto de sentencias en modo estricto
+ * ({@code sql.budget.enforce=true}) aunque el controlador haya capturado la excepción.
+ *
+ * La sentencia que supera el presupuesto lanza {@link SqlStatementCounter.BudgetExceededException},
+ * pero los controladores capturan {@code Exception} y responden con su propio 500, con lo que el
+ * test solo vería un error genérico. Antes de escribir el cuerpo se comprueba el contador y, si se
+ * ha superado, se vuelve a lanzar la excepción, que llega sin capturar hasta el servlet.
+ */
+@RestControllerAdvice
+public class SqlBudgetResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlStatementCounter counter = SqlStatementCounter.current();
+        if (counter != null && counter.isEnforced() && counter.isOverBudget()) {
+            throw new SqlStatementCounter.BudgetExceededException("Presupuesto de sentencias SQL superado: "
+                    + counter.getTotal() + " sentencias (máximo " + counter.getBudget() + ").");
+        }
+        return body;
+    }
+}
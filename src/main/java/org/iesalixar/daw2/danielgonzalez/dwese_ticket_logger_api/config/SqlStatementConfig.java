@@ -0,0 +1,39 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.SqlStatementCounter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Configuración del recuento de sentencias SQL por petición.
+ *
+ * Hibernate pasa cada sentencia que prepara por el {@link StatementInspector}, que la anota en el
+ * {@link SqlStatementCounter} del hilo actual sin modificarla; {@link SqlBudgetInterceptor} abre y
+ * cierra ese contador alrededor de cada petición a la API.
+ */
+@Configuration
+public class SqlStatementConfig implements WebMvcConfigurer {
+
+    @Autowired
+    private SqlBudgetInterceptor sqlBudgetInterceptor;
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounterCustomizer() {
+        StatementInspector inspector = sql -> {
+            SqlStatementCounter.record(sql);
+            return sql;
+        };
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(sqlBudgetInterceptor).addPathPatterns("/api/**");
+    }
+}
@@ -2,12 +2,18 @@ package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.controllers;
 
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.AuthRequestDTO;
 import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.AuthResponseDTO;
 import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -26,26 +32,53 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/v1")
 public class AuthenticationController {
 
+    private static final Logger logger = LoggerFactory.getLogger(AuthenticationController.class);
+
     @Autowired
     private AuthenticationManager authenticationManager; // Maneja la lógica de autenticación
 
     @Autowired
     private JwtUtil jwtUtil; // Utilidad personalizada para manejar tokens JWT
 
+    @Autowired
+    @Qualifier("loginExecutor")
+    private ThreadPoolTaskExecutor loginExecutor; // Pool acotado donde se verifican las contraseñas con BCrypt
+
     /**
      * genera un token JWT que incluye información del usuario y sus roles.
      *
+     * La verificación de la contraseña se ejecuta de forma asíncrona en un pool dedicado,
+     * liberando el hilo de Tomcat. Si el pool está saturado se responde con 429 de inmediato.
+     *
      * @param authRequest Un objeto {@link AuthRequestDTO} que contiene el nombre de usuario y la contraseña.
      * @return Una respuesta HTTP con un token JWT en caso de éxito o un error en caso de fallo.
      */
     @PostMapping("/authenticate")
-    public ResponseEntity<AuthResponseDTO> authenticate(@Valid @RequestBody AuthRequestDTO authRequest) {
+    public CompletableFuture<ResponseEntity<AuthResponseDTO>> authenticate(@Valid @RequestBody AuthRequestDTO authRequest) {
+        // Validar datos de entrada (opcional si no usas validación adicional en DTO)
+        if (authRequest.getUsername() == null || authRequest.getPassword() == null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new AuthResponseDTO(null, "El nombre de usuario y la contraseña son obligatorios.")));
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> doAuthenticate(authRequest), loginExecutor);
+        } catch (RejectedExecutionException e) {
+            // El pool y su cola están llenos: se rechaza sin ocupar más hilos
+            logger.warn("Pool de autenticación saturado, se rechaza el login de {}", authRequest.getUsername());
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header("Retry-After", "1")
+                    .body(new AuthResponseDTO(null, "Demasiadas solicitudes de autenticación. Por favor, inténtalo de nuevo en unos segundos.")));
+        }
+    }
+
+    /**
+     * Autentica al usuario y genera su token JWT. Se ejecuta en el pool de login.
+     *
+     * @param authRequest Un objeto {@link AuthRequestDTO} que contiene el nombre de usuario y la contraseña.
+     * @return Una respuesta HTTP con un token JWT en caso de éxito o un error en caso de fallo.
+     */
+    private ResponseEntity<AuthResponseDTO> doAuthenticate(AuthRequestDTO authRequest) {
         try {
-            // Validar datos de entrada (opcional si no usas validación adicional en DTO)
-            if (authRequest.getUsername() == null || authRequest.getPassword() == null) {
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                        .body(new AuthResponseDTO(null, "El nombre de usuario y la contraseña son obligatorios."));
-            }
             // Intenta autenticar al usuario con las credenciales proporcionadas
             Authentication authentication = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(authRequest.getUsername(), authRequest.getPassword())
@@ -4,19 +4,31 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.ConditionalRequests;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.FileTransfer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 @RestController
 @RequestMapping("/api/images")
@@ -27,31 +39,139 @@ public class FileStorageController {
     @Value("${UPLOAD_PATH}")
     private String uploadPath;
 
+    @Value("${http.cache.images.max-age:365d}") // Tiempo que los clientes pueden reutilizar una imagen sin revalidarla
+    private Duration imagesMaxAge;
+
+    // Tipo MIME por extensión, resuelto una sola vez
+    private final Map<String, String> contentTypes = new ConcurrentHashMap<>();
+
+    /**
+     * Sirve una imagen subida, completa o por tramos (cabecera Range, respuesta 206).
+     *
+     * La ETag se deriva del tamaño y la fecha de modificación del fichero, sin leer su contenido, y si
+     * coincide con el If-None-Match de la petición se responde 304. Los nombres de las imágenes son
+     * UUID que no se reutilizan, así que se pueden cachear como inmutables. El contenido lo envía
+     * {@link FileTransfer}, con el sendfile del contenedor cuando está disponible.
+     *
+     * @param fileName Nombre del fichero.
+     * @param request  Petición actual, para las cabeceras condicionales.
+     * @return null si la respuesta ya se ha escrito (o es un 304); 404 si no existe, 416 si el tramo
+     * pedido no existe o 500 si no se puede leer.
+     */
     @GetMapping("/{fileName}")
-    public ResponseEntity<Resource> getImage(@PathVariable String fileName) {
+    public ResponseEntity<Void> getImage(@PathVariable String fileName, ServletWebRequest request) {
         try {
-            Path filePath = Paths.get(uploadPath).resolve(fileName).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
-
-            if (resource.exists() && resource.isReadable()) {
-                logger.info("Sirviendo archivo: {}", fileName);
-                String contentType = Files.probeContentType(filePath);
-                if (contentType == null) {
-                    contentType = "application/octet-stream";
-                    logger.warn("No se pudo detectar el tipo MIME del archivo {}. Se usará el tipo genérico.", fileName);
+            Path uploadDir = Paths.get(uploadPath).toAbsolutePath().normalize();
+            Path filePath = uploadDir.resolve(fileName).normalize();
+            if (!filePath.startsWith(uploadDir) || !Files.isRegularFile(filePath) || !Files.isReadable(filePath)) {
+                logger.error("El archivo {} no existe o no se puede leer.", fileName);
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+            }
+
+            BasicFileAttributes attributes = Files.readAttributes(filePath, BasicFileAttributes.class);
+            long size = attributes.size();
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            String etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+            if (ConditionalRequests.notModified(request, etag, attributes.lastModifiedTime().toInstant(),
+                    ConditionalRequests.immutableCacheControl(imagesMaxAge))) {
+                logger.debug("El archivo {} no ha cambiado.", fileName);
+                return null; // 304 Not Modified ya preparado, sin leer el fichero
+            }
+
+            HttpServletRequest servletRequest = request.getRequest();
+            HttpServletResponse response = request.getResponse();
+            long start = 0;
+            long end = size - 1;
+            String range = servletRequest.getHeader(HttpHeaders.RANGE);
+            if (range != null && ifRangeMatches(servletRequest, etag, lastModified)) {
+                List<HttpRange> ranges = parseRanges(range);
+                // Con varios tramos se responde el fichero completo, como permite el RFC 9110
+                if (ranges.size() == 1) {
+                    try {
+                        start = ranges.get(0).getRangeStart(size);
+                        end = ranges.get(0).getRangeEnd(size);
+                        if (start >= size || start > end) {
+                            throw new IllegalArgumentException("Tramo fuera del archivo");
+                        }
+                    } catch (IllegalArgumentException e) {
+                        logger.debug("Tramo {} fuera del archivo {} ({} bytes).", range, fileName, size);
+                        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                                .build();
+                    }
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
                 }
+            }
 
-                return ResponseEntity.ok()
-                        .header(HttpHeaders.CONTENT_TYPE, contentType)
-                        .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
-                        .body(resource);
-            } else {
-                logger.error("El archivo {} no existe o no se puede leer.", fileName);
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
+            response.setContentType(contentType(filePath));
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filePath.getFileName() + "\"");
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            response.setContentLengthLong(end - start + 1);
+            if (!"HEAD".equals(servletRequest.getMethod())) {
+                boolean sendfile = FileTransfer.send(servletRequest, response, filePath, start, end);
+                logger.debug("Sirviendo archivo: {} (bytes {}-{}{})", fileName, start, end, sendfile ? ", sendfile" : "");
             }
+            return null; // Respuesta ya escrita (o delegada en el sendfile del contenedor)
         } catch (IOException e) {
             logger.error("Error al servir el archivo {}: {}", fileName, e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Interpreta la cabecera Range; una cabecera mal formada se ignora y se sirve el fichero completo.
+     */
+    private List<HttpRange> parseRanges(String range) {
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            logger.debug("Cabecera Range no válida: {}", range);
+            return List.of();
+        }
+    }
+
+    /**
+     * Comprueba la cabecera If-Range: el tramo solo se sirve si el cliente tiene la versión actual
+     * (misma ETag fuerte o misma fecha de modificación); si no, se envía el fichero completo.
+     */
+    private boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
         }
     }
+
+    /**
+     * Obtiene el tipo MIME del fichero por su extensión, consultando el sistema solo la primera vez
+     * que aparece cada extensión.
+     */
+    private String contentType(Path filePath) {
+        String name = filePath.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String extension = dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+        return contentTypes.computeIfAbsent(extension, ext -> {
+            String contentType = MediaTypeFactory.getMediaType(name).map(MediaType::toString).orElse(null);
+            if (contentType == null) {
+                try {
+                    contentType = Files.probeContentType(filePath);
+                } catch (IOException e) {
+                    logger.debug("No se pudo consultar el tipo MIME de {}: {}", name, e.getMessage());
+                }
+            }
+            if (contentType == null) {
+                logger.warn("No se pudo detectar el tipo MIME de la extensión '{}'. Se usará el tipo genérico.", ext);
+                contentType = MediaType.APPLICATION_OCTET_STREAM_VALUE;
+            }
+            return contentType;
+        });
+    }
 }
@@ -0,0 +1,48 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.controllers;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.ProductDTO;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services.ProductSuggestService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Controlador para las operaciones sobre el catálogo de productos.
+ */
+@RestController
+@RequestMapping("/api/products")
+public class ProductController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductController.class);
+
+    @Autowired
+    private ProductSuggestService productSuggestService;
+
+    /**
+     * Sugiere productos para autocompletar mientras se escribe, sin distinguir mayúsculas ni tildes.
+     * Se resuelve en memoria, sin consultar la base de datos.
+     *
+     * @param query Texto escrito hasta el momento.
+     * @param limit Número máximo de sugerencias (por defecto 10).
+     * @return ResponseEntity con la lista de productos sugeridos.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductDTO>> suggestProducts(@RequestParam("q") String query,
+                                                            @RequestParam(defaultValue = "10") int limit) {
+        logger.debug("Sugiriendo productos para '{}'", query);
+        try {
+            return ResponseEntity.ok(productSuggestService.suggest(query, limit));
+        } catch (Exception e) {
+            logger.error("Error al sugerir productos: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
+        }
+    }
+}
@@ -1,16 +1,27 @@
 package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.controllers;
 
 import jakarta.validation.Valid;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.config.SqlBudget;
 import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Province;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Region;
 import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.ProvinceRepository;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.RegionRepository;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services.CatalogVersionService;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services.ReferenceDataCacheService;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.ConditionalRequests;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
@@ -27,18 +38,42 @@ public class ProvinceController {
     @Autowired
     private ProvinceRepository provinceRepository;
 
+    @Autowired
+    private RegionRepository regionRepository;
+
     @Autowired
     private MessageSource messageSource;
 
+    @Autowired
+    private ReferenceDataCacheService referenceDataCacheService;
+
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Value("${http.cache.provinces.max-age:0s}") // Tiempo que los clientes pueden reutilizar el listado sin revalidarlo
+    private Duration provincesMaxAge;
+
     /**
      * Lista todas las provincias almacenadas en la base de datos.
      *
+     * Cada provincia incluye su región, así que la ETag depende del estado de ambas tablas
+     * ({@link CatalogVersionService}); si coincide con el If-None-Match de la petición se responde
+     * 304 sin cargar las provincias.
+     *
+     * @param request Petición actual, para las cabeceras condicionales.
      * @return ResponseEntity con la lista de provincias o un error en caso de fallo.
      */
     @GetMapping
-    public ResponseEntity<List<Province>> getAllProvinces() {
+    @SqlBudget(3)
+    public ResponseEntity<List<Province>> getAllProvinces(ServletWebRequest request) {
         logger.info("Solicitando la lista de todas las provincias...");
         try {
+            String etag = catalogVersionService.provincesETag();
+            if (ConditionalRequests.notModified(request, etag, null,
+                    ConditionalRequests.cacheControl(provincesMaxAge))) {
+                logger.info("El listado de provincias no ha cambiado ({}).", etag);
+                return null; // 304 Not Modified ya preparado, sin cargar las provincias
+            }
             List<Province> provinces = provinceRepository.findAll();
             logger.info("Se han encontrado {} provincias.", provinces.size());
             return ResponseEntity.ok(provinces);
@@ -55,13 +90,16 @@ public class ProvinceController {
      * @return ResponseEntity con la provincia encontrada o un mensaje de error si no existe.
      */
     @GetMapping("/{id}")
+    @SqlBudget(1)
     public ResponseEntity<Province> getProvinceById(@PathVariable Long id) {
         logger.info("Buscando provincia con ID {}", id);
         try {
             Optional<Province> province = provinceRepository.findById(id);
             if (province.isPresent()) {
                 logger.info("Provincia con ID {} encontrada: {}", id, province.get());
-                return ResponseEntity.ok(province.get());
+                return ResponseEntity.ok()
+                        .eTag(ConditionalRequests.versionETag(province.get().getVersion()))
+                        .body(province.get());
             } else {
                 logger.warn("No se encontró ninguna provincia con ID {}", id);
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
@@ -84,9 +122,13 @@ public class ProvinceController {
         logger.info("Insertando nueva provincia con código {}", province.getCode());
         try {
             // Guardar la nueva provincia
+            province.setRegion(regionReference(province.getRegion()));
             Province savedProvince = provinceRepository.save(province);
             logger.info("Provincia creada exitosamente con ID {}", savedProvince.getId());
-            return ResponseEntity.status(HttpStatus.CREATED).body(savedProvince);
+            referenceDataCacheService.evictProvince(savedProvince.getId(), regionId(savedProvince));
+            // Se devuelve releída con su región, igual que al actualizarla
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(provinceRepository.findById(savedProvince.getId()).orElse(savedProvince));
         } catch (Exception e) {
             logger.error("Error al crear la provincia: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al crear la provincia.");
@@ -96,13 +138,19 @@ public class ProvinceController {
     /**
      * Actualiza una provincia existente por su ID.
      *
+     * Con la cabecera If-Match solo se actualiza si la provincia sigue en esa versión;
+     * si otro usuario la ha modificado se responde 409 Conflict con la versión actual.
+     *
      * @param id        ID de la provincia a actualizar.
      * @param province Objeto JSON con los nuevos datos.
+     * @param ifMatch   ETag de la versión que se quiere modificar (opcional).
      * @param locale    Idioma de los mensajes de error.
      * @return ResponseEntity con la provincia actualizada o un mensaje de error.
      */
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateProvince(@PathVariable Long id, @Valid @RequestBody Province province, Locale locale) {
+    public ResponseEntity<?> updateProvince(@PathVariable Long id, @Valid @RequestBody Province province,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                            Locale locale) {
         logger.info("Actualizando provincia con ID {}", id);
         try {
             // Verificar si la provincia existe
@@ -111,11 +159,34 @@ public class ProvinceController {
                 logger.warn("No se encontró ninguna provincia con ID {}", id);
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("La provincia no existe.");
             }
-            // Actualizar la provincia
-            province.setId(id); // Asegurarse de que el ID no cambie
-            Province updatedProvince = provinceRepository.save(province);
+            // Comprobar que el cliente modifica la versión vigente
+            Province currentProvince = existingProvince.get();
+            Long expectedVersion = ConditionalRequests.expectedVersion(ifMatch);
+            if (expectedVersion != null && !expectedVersion.equals(currentProvince.getVersion())) {
+                logger.warn("La provincia con ID {} ha cambiado: versión esperada {}, actual {}",
+                        id, expectedVersion, currentProvince.getVersion());
+                return ConditionalRequests.versionConflict("La provincia ha sido modificada por otro usuario.",
+                        currentProvince.getVersion());
+            }
+            // Actualizar la provincia cargada, que conserva su versión para detectar escrituras concurrentes
+            Long previousRegionId = regionId(currentProvince);
+            currentProvince.setCode(province.getCode());
+            currentProvince.setName(province.getName());
+            currentProvince.setRegion(regionReference(province.getRegion()));
+            Province updatedProvince = provinceRepository.save(currentProvince);
             logger.info("Provincia con ID {} actualizada exitosamente.", id);
-            return ResponseEntity.ok(updatedProvince);
+            // Se invalidan la región anterior y la nueva por si la provincia ha cambiado de región
+            referenceDataCacheService.evictProvince(id, previousRegionId);
+            referenceDataCacheService.evictProvince(id, regionId(updatedProvince));
+            // Se devuelve releída con su región: la entidad fusionada solo tiene una referencia sin cargar
+            Province reloadedProvince = provinceRepository.findById(id).orElse(updatedProvince);
+            return ResponseEntity.ok()
+                    .eTag(ConditionalRequests.versionETag(reloadedProvince.getVersion()))
+                    .body(reloadedProvince);
+        } catch (OptimisticLockingFailureException e) {
+            logger.warn("Conflicto de versiones al actualizar la provincia con ID {}: {}", id, e.getMessage());
+            return ConditionalRequests.versionConflict("La provincia ha sido modificada por otro usuario.",
+                    provinceRepository.findById(id).map(Province::getVersion).orElse(null));
         } catch (Exception e) {
             logger.error("Error al actualizar la provincia con ID {}: {}", id, e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al actualizar la provincia.");
@@ -133,17 +204,40 @@ public class ProvinceController {
         logger.info("Eliminando provincia con ID {}", id);
         try {
             // Verificar si la provincia existe
-            if (!provinceRepository.existsById(id)) {
+            Optional<Province> existingProvince = provinceRepository.findById(id);
+            if (existingProvince.isEmpty()) {
                 logger.warn("No se encontró ninguna provincia con ID {}", id);
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("La provincia no existe.");
             }
             // Eliminar la provincia
             provinceRepository.deleteById(id);
             logger.info("Provincia con ID {} eliminada exitosamente.", id);
+            referenceDataCacheService.evictProvince(id, regionId(existingProvince.get()));
             return ResponseEntity.noContent().build();
         } catch (Exception e) {
             logger.error("Error al eliminar la provincia con ID {}: {}", id, e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al eliminar la provincia.");
         }
     }
+
+    /**
+     * Obtiene el ID de la región de una provincia sin inicializar el proxy de la región.
+     *
+     * @param province la provincia.
+     * @return el ID de su región o null si no tiene.
+     */
+    private Long regionId(Province province) {
+        return province.getRegion() != null ? province.getRegion().getId() : null;
+    }
+
+    /**
+     * Obtiene una referencia gestionada a la región indicada en la petición, que solo trae su ID
+     * (sin versión), para asignarla a la provincia sin consultarla.
+     *
+     * @param region Región recibida en la petición.
+     * @return Referencia a la región o null si no se indica.
+     */
+    private Region regionReference(Region region) {
+        return region == null || region.getId() == null ? null : regionRepository.getReferenceById(region.getId());
+    }
 }
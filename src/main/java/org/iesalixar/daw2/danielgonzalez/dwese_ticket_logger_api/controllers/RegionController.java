@@ -7,17 +7,26 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.config.SqlBudget;
 import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.RegionCreateDTO;
 import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.RegionDTO;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Region;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services.CatalogVersionService;
 import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services.RegionService;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.ConditionalRequests;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.time.Duration;
 import java.util.Locale;
 import java.util.Optional;
 import org.springframework.data.domain.Page;
@@ -36,9 +45,20 @@ public class RegionController {
     @Autowired
     private RegionService regionService;
 
+    @Autowired
+    private CatalogVersionService catalogVersionService;
+
+    @Value("${http.cache.regions.max-age:0s}") // Tiempo que los clientes pueden reutilizar el listado sin revalidarlo
+    private Duration regionsMaxAge;
+
     /**
      * Obtiene todas las regiones almacenadas en la base de datos.
      *
+     * La ETag se obtiene del estado de la tabla de regiones ({@link CatalogVersionService}); si
+     * coincide con el If-None-Match de la petición se responde 304 sin cargar las regiones.
+     *
+     * @param pageable Página y ordenación solicitadas.
+     * @param request  Petición actual, para las cabeceras condicionales.
      * @return Lista de regiones.
      */
         @Operation(summary = "Obtener todas las regiones", description = "Devuelve una lista de todas las regiones disponibles en el sistema.")
@@ -46,15 +66,24 @@ public class RegionController {
             @ApiResponse(responseCode = "200", description = "Lista de regiones recuperada exitosamente",
                 content = @Content(mediaType = "application/json",
                     array = @ArraySchema(schema = @Schema(implementation = RegionDTO.class)))),
+            @ApiResponse(responseCode = "304", description = "El listado no ha cambiado desde la ETag indicada"),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor")
         })
         @GetMapping
+        @SqlBudget(3)
         public ResponseEntity<Page<RegionDTO>> getAllRegions(
-                @PageableDefault(size = 10, sort = "name") Pageable pageable
+                @PageableDefault(size = 10, sort = "name") Pageable pageable,
+                ServletWebRequest request
         ) {
         logger.info("Solicitando todas las regiones con paginación: página {}, tamaño {}",
                 pageable.getPageNumber(), pageable.getPageSize());
         try {
+            String etag = catalogVersionService.regionsETag();
+            if (ConditionalRequests.notModified(request, etag, null,
+                    ConditionalRequests.cacheControl(regionsMaxAge))) {
+                logger.info("El listado de regiones no ha cambiado ({}).", etag);
+                return null; // 304 Not Modified ya preparado, sin cargar las regiones
+            }
             Page<RegionDTO> regions = regionService.getAllRegions(pageable);
             logger.info("Se han encontrado {} regiones.", regions.getTotalElements());
             return ResponseEntity.ok(regions);
@@ -79,6 +108,7 @@ public class RegionController {
             @ApiResponse(responseCode = "500", description = "Error interno del servidor")
         })
         @GetMapping("/{id}")
+        @SqlBudget(1)
         public ResponseEntity<?> getRegionById(@PathVariable Long id) {
         logger.info("Buscando región con ID {}", id);
         try {
@@ -86,7 +116,9 @@ public class RegionController {
 
             if (regionDTO.isPresent()) {
                 logger.info("Región con ID {} encontrada.", id);
-                return ResponseEntity.ok(regionDTO.get());
+                return ResponseEntity.ok()
+                        .eTag(ConditionalRequests.versionETag(regionDTO.get().getVersion()))
+                        .body(regionDTO.get());
             } else {
                 logger.warn("No se encontró ninguna región con ID {}", id);
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("La región no existe.");
@@ -166,8 +198,12 @@ public class RegionController {
     /**
      * Actualiza una región existente.
      *
+     * Con la cabecera If-Match solo se actualiza si la región sigue en esa versión;
+     * si otro usuario la ha modificado se responde 409 Conflict con la versión actual.
+     *
      * @param id ID de la región a actualizar.
      * @param regionCreateDTO DTO con los datos para actualizar la región.
+     * @param ifMatch ETag de la versión que se quiere modificar (opcional).
      * @param locale Idioma para los mensajes de error.
      * @return ResponseEntity con la región actualizada o un mensaje de error.
      */
@@ -177,6 +213,7 @@ public class RegionController {
                 content = @Content(mediaType = "application/json",
                     schema = @Schema(implementation = RegionDTO.class))),
             @ApiResponse(responseCode = "400", description = "Datos inválidos"),
+            @ApiResponse(responseCode = "409", description = "La región ha sido modificada por otro usuario"),
             @ApiResponse(responseCode = "500", description = "Error interno del servidor")
         })
         @PutMapping(value = "/{id}", consumes = "multipart/form-data")
@@ -184,13 +221,21 @@ public class RegionController {
         public ResponseEntity<?> updateRegion(
             @PathVariable Long id,
             @Valid @ModelAttribute RegionCreateDTO regionCreateDTO,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             Locale locale) {
         try {
-            RegionDTO regionDTO = regionService.updateRegion(id, regionCreateDTO, locale);
-            return ResponseEntity.ok(regionDTO);
+            RegionDTO regionDTO = regionService.updateRegion(id, regionCreateDTO,
+                    ConditionalRequests.expectedVersion(ifMatch), locale);
+            return ResponseEntity.ok()
+                    .eTag(ConditionalRequests.versionETag(regionDTO.getVersion()))
+                    .body(regionDTO);
         } catch (IllegalArgumentException e) {
             logger.warn("Error al actualizar la región con ID {}: {}", id, e.getMessage());
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            logger.warn("Conflicto de versiones al actualizar la región con ID {}: {}", id, e.getMessage());
+            return ConditionalRequests.versionConflict("La región ha sido modificada por otro usuario.",
+                    regionService.getRegionById(id).map(RegionDTO::getVersion).orElse(null));
         } catch (RuntimeException e) {
             logger.error("Error al guardar la imagen para la región con ID {}: {}", id, e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al guardar la imagen.");
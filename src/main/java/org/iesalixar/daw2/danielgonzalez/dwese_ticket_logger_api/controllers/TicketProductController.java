@@ -1,21 +1,65 @@
 package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.controllers;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.config.SqlBudget;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.BulkItemResultDTO;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.BulkResultDTO;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.CursorPageDTO;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.ProductDTO;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.TicketDetailDTO;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.TicketSummaryDTO;
 import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.*;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.mapper.TicketMapper;
 import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.*;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services.ProductSearchService;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services.TicketBulkService;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services.TicketExportService;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services.TicketService;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.ConditionalRequests;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.KeysetCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.PagedModel;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.math.BigDecimal;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/tickets")
@@ -24,11 +68,14 @@ public class TicketProductController {
     private static final Logger logger =
             LoggerFactory.getLogger(TicketProductController.class);
 
-    @Autowired
-    private TicketRepository ticketRepository;
+    // Tamaño máximo de página permitido en los listados por cursor
+    private static final int MAX_PAGE_SIZE = 100;
+
+    // Campos del resumen por los que se puede ordenar el listado paginado
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("date", "total", "id");
 
     @Autowired
-    private ProductRepository productRepository;
+    private TicketRepository ticketRepository;
 
     //@Autowired
     //private LocationRepository locationRepository;
@@ -39,21 +86,62 @@ public class TicketProductController {
     @Autowired
     private ProvinceRepository provinceRepository;
 
+    @Autowired
+    private TicketMapper ticketMapper;
+
+    @Autowired
+    private TicketService ticketService;
+
+    @Autowired
+    private TicketBulkService ticketBulkService;
+
+    @Autowired
+    private TicketExportService ticketExportService;
+
+    @Autowired
+    private ProductSearchService productSearchService;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
     @Autowired
     private MessageSource messageSource;
 
     /**
-     * Lista todos los tickets disponibles.
+     * Lista los tickets de forma paginada como resúmenes planos.
+     *
+     * Solo se puede ordenar por {@code date}, {@code total} e {@code id}; se añade siempre el
+     * identificador como último criterio para que los tickets con la misma fecha o total tengan
+     * un orden estable y no se repitan ni se pierdan entre páginas.
      *
-     * @return ResponseEntity con la lista de tickets.
+     * @param pageable Página, tamaño y ordenación solicitados (por defecto, los 20 más recientes).
+     * @return ResponseEntity con la página de resúmenes de tickets ({@code content} y los datos de
+     * paginación en {@code page}) o 400 si se ordena por un campo no permitido.
      */
     @GetMapping
-    public ResponseEntity<List<Ticket>> getAllTickets() {
-        logger.info("Solicitando la lista de todos los tickets...");
+    @SqlBudget(2)
+    public ResponseEntity<?> getAllTickets(
+            @PageableDefault(size = 20, sort = "date", direction = Sort.Direction.DESC) Pageable pageable) {
+        logger.info("Solicitando tickets paginados: página {}, tamaño {}",
+                pageable.getPageNumber(), pageable.getPageSize());
+        for (Sort.Order order : pageable.getSort()) {
+            if (!SORTABLE_PROPERTIES.contains(order.getProperty())) {
+                logger.warn("Ordenación no permitida: {}", order.getProperty());
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body("No se puede ordenar por '" + order.getProperty() + "'. Campos permitidos: date, total, id.");
+            }
+        }
+        Sort sort = pageable.getSort();
+        if (sort.getOrderFor("id") == null) {
+            Sort.Direction direction = sort.stream().findFirst().map(Sort.Order::getDirection).orElse(Sort.Direction.DESC);
+            sort = sort.and(Sort.by(direction, "id"));
+        }
         try {
-            List<Ticket> tickets = ticketRepository.findAll();
-            logger.info("Se han encontrado {} tickets.", tickets.size());
-            return ResponseEntity.ok(tickets);
+            Page<TicketSummaryDTO> tickets = ticketRepository.findSummaries(
+                    PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort));
+            logger.info("Se han encontrado {} tickets en la página actual.", tickets.getNumberOfElements());
+            // PagedModel fija la estructura JSON de la página, que PageImpl no garantiza entre versiones
+            return ResponseEntity.ok(new PagedModel<>(tickets));
         } catch (Exception e) {
             logger.error("Error al listar los tickets: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(null);
@@ -61,19 +149,114 @@ public class TicketProductController {
     }
 
     /**
-     * Obtiene un ticket específico por su ID.
+     * Lista los tickets paginados por cursor (keyset), del más reciente al más antiguo
+     * según {@code (date, id)}. El coste de cada página es el mismo independientemente de
+     * su profundidad, a diferencia de la paginación por desplazamiento.
+     *
+     * @param cursor Token opaco devuelto por la página anterior (vacío para la primera página).
+     * @param size   Número de tickets por página (máximo 100).
+     * @return ResponseEntity con los resúmenes de la página y el cursor de la siguiente.
+     */
+    @GetMapping("/scroll")
+    @SqlBudget(1)
+    public ResponseEntity<?> scrollTickets(@RequestParam(value = "cursor", required = false) String cursor,
+                                           @RequestParam(value = "size", defaultValue = "20") int size) {
+        logger.info("Solicitando tickets por cursor: cursor {}, tamaño {}", cursor, size);
+        try {
+            int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+            // Se pide un elemento más para saber si existe una página siguiente
+            Limit limit = Limit.of(pageSize + 1);
+            List<TicketSummaryDTO> tickets;
+            if (cursor == null || cursor.isBlank()) {
+                tickets = ticketRepository.findFirstSummaries(limit);
+            } else {
+                KeysetCursor position = KeysetCursor.decode(cursor);
+                tickets = ticketRepository.findSummariesBefore(position.getDate(), position.getId(), limit);
+            }
+
+            String nextCursor = null;
+            if (tickets.size() > pageSize) {
+                tickets = tickets.subList(0, pageSize);
+                TicketSummaryDTO last = tickets.get(pageSize - 1);
+                nextCursor = new KeysetCursor(last.getDate(), last.getId()).encode();
+            }
+            logger.info("Se han encontrado {} tickets en la página actual.", tickets.size());
+            return ResponseEntity.ok(new CursorPageDTO<>(tickets, nextCursor, pageSize));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Cursor de paginación no válido: {}", cursor);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (Exception e) {
+            logger.error("Error al listar los tickets: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al listar los tickets.");
+        }
+    }
+
+    /**
+     * Exporta los tickets que cumplen los filtros, ordenados por fecha, como NDJSON o CSV.
+     * Las filas se leen de la base de datos y se escriben en la respuesta a medida que llegan,
+     * por lo que la memoria usada no depende del número de tickets exportados.
+     *
+     * @param format        Formato de la exportación: "ndjson" (por defecto) o "csv".
+     * @param from          Primer día a exportar (incluido), opcional.
+     * @param to            Último día a exportar (incluido), opcional.
+     * @param locationId    ID de la ubicación, opcional.
+     * @param supermarketId ID del supermercado, opcional.
+     * @param response      Respuesta en la que se escriben los tickets.
+     * @throws IOException si falla la escritura de la respuesta.
+     */
+    @GetMapping("/export")
+    @SqlBudget(1)
+    public void exportTickets(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                              @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                              @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                              @RequestParam(value = "locationId", required = false) Long locationId,
+                              @RequestParam(value = "supermarketId", required = false) Long supermarketId,
+                              HttpServletResponse response) throws IOException {
+        logger.info("Exportando tickets en {}: desde {} hasta {}, ubicación {}, supermercado {}",
+                format, from, to, locationId, supermarketId);
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            logger.warn("Formato de exportación no válido: {}", format);
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            response.getWriter().write("Formato no válido, use 'ndjson' o 'csv'.");
+            return;
+        }
+
+        // El último día se incluye completo
+        Date fromDate = from == null ? null : Date.from(from.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        Date toDate = to == null ? null : Date.from(to.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant());
+
+        response.setContentType(csv ? "text/csv;charset=UTF-8" : MediaType.APPLICATION_NDJSON_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"tickets." + (csv ? "csv" : "ndjson") + "\"");
+        if (csv) {
+            ticketExportService.exportCsv(fromDate, toDate, locationId, supermarketId, response.getOutputStream());
+        } else {
+            ticketExportService.exportNdjson(fromDate, toDate, locationId, supermarketId, response.getOutputStream());
+        }
+    }
+
+    /**
+     * Obtiene el detalle de un ticket específico por su ID, con su ubicación y sus productos.
+     * Todas las relaciones se cargan en una única consulta.
      *
      * @param id ID del ticket solicitado.
-     * @return ResponseEntity con el ticket encontrado o un mensaje de error.
+     * @return ResponseEntity con el detalle del ticket encontrado (con su versión como ETag) o un mensaje de error.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Ticket> getTicketById(@PathVariable Long id) {
+    @SqlBudget(1)
+    public ResponseEntity<TicketDetailDTO> getTicketById(@PathVariable Long id) {
         logger.info("Buscando ticket con ID {}", id);
         try {
-            Optional<Ticket> ticket = ticketRepository.findById(id);
+            Optional<Ticket> ticket = ticketRepository.findDetailById(id);
             if (ticket.isPresent()) {
                 logger.info("Ticket con ID {} encontrado.", id);
-                return ResponseEntity.ok(ticket.get());
+                return ResponseEntity.ok()
+                        .eTag(ConditionalRequests.versionETag(ticket.get().getVersion()))
+                        .body(ticketMapper.toDetailDTO(ticket.get()));
             } else {
                 logger.warn("No se encontró ningún ticket con ID {}", id);
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body(null);
@@ -95,42 +278,117 @@ public class TicketProductController {
     public ResponseEntity<?> createTicket(@Valid @RequestBody Ticket ticket, Locale locale) {
         logger.info("Insertando nuevo ticket con fecha {}", ticket.getDate());
         try {
-            Ticket savedTicket = ticketRepository.save(ticket);
-            logger.info("Ticket creado exitosamente con ID {}", savedTicket.getId());
-            return ResponseEntity.status(HttpStatus.CREATED).body(savedTicket);
+            TicketDetailDTO created = ticketService.createTicket(ticket);
+            return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        } catch (NoSuchElementException e) {
+            logger.warn("Error al crear el ticket: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (DataIntegrityViolationException e) {
+            logger.error("Violación de integridad al crear el ticket: {}", e.getMessage());
+            String msg = messageSource.getMessage("msg.ticket-controller.insert.integrity-violation", null, locale);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(msg);
         } catch (Exception e) {
             logger.error("Error al crear el ticket: {}", e.getMessage());
-            String msg = messageSource.getMessage("msg.ticketcontroller.insert.error", null, locale);
+            String msg = messageSource.getMessage("msg.ticket-controller.insert.error", null, locale);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(msg);
         }
     }
 
+    /**
+     * Crea tickets de forma masiva. El cuerpo puede ser un array JSON de tickets o un flujo
+     * NDJSON (un ticket por línea), con el mismo formato que la creación individual.
+     * La petición se lee en streaming y los tickets se guardan por bloques, cada uno en su
+     * propia transacción, por lo que un ticket erróneo no impide guardar el resto.
+     *
+     * @param request Petición con los tickets en el cuerpo.
+     * @return ResponseEntity con el resultado de cada ticket: 201 si se han guardado todos,
+     *         207 si alguno se ha rechazado.
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<?> bulkCreateTickets(HttpServletRequest request) {
+        logger.info("Recibiendo carga masiva de tickets ({})", request.getContentType());
+        List<BulkItemResultDTO> results = new ArrayList<>();
+        Map<Integer, Ticket> batch = new LinkedHashMap<>();
+        int received = 0;
+        try (InputStream body = request.getInputStream()) {
+            if (MediaType.APPLICATION_NDJSON.includes(MediaType.parseMediaType(request.getContentType()))) {
+                // Cada línea se analiza por separado: una línea mal formada solo invalida ese ticket
+                BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    int index = received++;
+                    try {
+                        batch.put(index, jsonMapper.readValue(line, Ticket.class));
+                    } catch (JacksonException e) {
+                        results.add(new BulkItemResultDTO(index, null, "JSON no válido: " + e.getOriginalMessage()));
+                    }
+                    batch = saveBatchIfFull(batch, results);
+                }
+            } else {
+                try (MappingIterator<Ticket> tickets = jsonMapper.readerFor(Ticket.class).readValues(body)) {
+                    while (tickets.hasNextValue()) {
+                        batch.put(received, tickets.nextValue());
+                        received++;
+                        batch = saveBatchIfFull(batch, results);
+                    }
+                } catch (JacksonException e) {
+                    // Un array mal formado no permite seguir leyendo: se guardan los tickets ya leídos
+                    logger.warn("Carga masiva interrumpida en el elemento {}: {}", received, e.getOriginalMessage());
+                    results.add(new BulkItemResultDTO(received, null, "JSON no válido: " + e.getOriginalMessage()));
+                    received++;
+                }
+            }
+            if (!batch.isEmpty()) {
+                results.addAll(ticketBulkService.saveBatch(batch));
+            }
+        } catch (Exception e) {
+            logger.error("Error en la carga masiva de tickets: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error en la carga masiva de tickets.");
+        }
+
+        results.sort(Comparator.comparingInt(BulkItemResultDTO::getIndex));
+        int failed = (int) results.stream().filter(result -> result.getError() != null).count();
+        logger.info("Carga masiva finalizada: {} tickets recibidos, {} guardados, {} rechazados.",
+                received, received - failed, failed);
+        return ResponseEntity.status(failed == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS)
+                .body(new BulkResultDTO(received, received - failed, failed, results));
+    }
+
     /**
      * Actualiza un ticket existente por su ID.
      *
-     * @param id     ID del ticket a actualizar.
-     * @param ticket Objeto JSON con los nuevos datos.
-     * @param locale Idioma de los mensajes de error.
-     * @return ResponseEntity con el ticket actualizado o un mensaje de error.
+     * Si se envía la cabecera If-Match con la ETag obtenida al leer el ticket, solo se actualiza
+     * si nadie lo ha modificado desde entonces; en caso contrario se responde 409 Conflict con la
+     * versión actual. Sin If-Match la escritura sigue protegida por la versión de la entidad.
+     *
+     * @param id      ID del ticket a actualizar.
+     * @param ticket  Objeto JSON con los nuevos datos.
+     * @param ifMatch ETag de la versión que el cliente quiere modificar (opcional).
+     * @param locale  Idioma de los mensajes de error.
+     * @return ResponseEntity con el ticket actualizado (con su nueva versión como ETag) o un mensaje de error.
      */
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateTicket(@PathVariable Long id, @Valid @RequestBody Ticket ticket, Locale locale) {
+    @SqlBudget(3)
+    public ResponseEntity<?> updateTicket(@PathVariable Long id, @Valid @RequestBody Ticket ticket,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                          Locale locale) {
         logger.info("Actualizando ticket con ID {}", id);
         try {
-            // Verificar si el ticket existe
-            Optional<Ticket> existingTicket = ticketRepository.findById(id);
-            if (!existingTicket.isPresent()) {
-                logger.warn("No se encontró ningún ticket con ID {}", id);
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("El ticket no existe.");
-            }
-            // Actualizar el ticket
-            ticket.setId(id);
-            Ticket updatedTicket = ticketRepository.save(ticket);
-            logger.info("Ticket con ID {} actualizado exitosamente.", id);
-            return ResponseEntity.ok(updatedTicket);
+            TicketDetailDTO dto = ticketService.updateTicket(id, ticket, ConditionalRequests.expectedVersion(ifMatch));
+            return ResponseEntity.ok().eTag(ConditionalRequests.versionETag(dto.getVersion())).body(dto);
+        } catch (NoSuchElementException e) {
+            logger.warn("No se encontró ningún ticket con ID {}", id);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            logger.warn("Conflicto de versiones al actualizar el ticket {}: {}", id, e.getMessage());
+            return ConditionalRequests.versionConflict("El ticket ha sido modificado por otro usuario.",
+                    ticketRepository.findVersionById(id).orElse(null));
         } catch (Exception e) {
             logger.error("Error al actualizar el ticket con ID {}: {}", id, e.getMessage());
-            String msg = messageSource.getMessage("msg.ticketcontroller.update.error", null, locale);
+            String msg = messageSource.getMessage("msg.ticket-controller.update.error", null, locale);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(msg);
         }
     }
@@ -138,22 +396,27 @@ public class TicketProductController {
     /**
      * Elimina un ticket específico por su ID.
      *
-     * @param id ID del ticket a eliminar.
+     * Con la cabecera If-Match solo se elimina si nadie lo ha modificado desde que se leyó; si otro
+     * usuario lo modifica a la vez se responde 409 Conflict con la versión actual.
+     *
+     * @param id      ID del ticket a eliminar.
+     * @param ifMatch ETag de la versión que el cliente quiere eliminar (opcional).
      * @return ResponseEntity indicando el resultado de la operación.
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteTicket(@PathVariable Long id) {
+    public ResponseEntity<?> deleteTicket(@PathVariable Long id,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.info("Eliminando ticket con ID {}", id);
         try {
-            // Verificar si el ticket existe
-            if (!ticketRepository.existsById(id)) {
-                logger.warn("No se encontró ningún ticket con ID {}", id);
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("El ticket no existe.");
-            }
-            // Eliminar el ticket
-            ticketRepository.deleteById(id);
-            logger.info("Ticket con ID {} eliminado exitosamente.", id);
+            ticketService.deleteTicket(id, ConditionalRequests.expectedVersion(ifMatch));
             return ResponseEntity.noContent().build();
+        } catch (NoSuchElementException e) {
+            logger.warn("No se encontró ningún ticket con ID {}", id);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            logger.warn("Conflicto de versiones al eliminar el ticket {}: {}", id, e.getMessage());
+            return ConditionalRequests.versionConflict("El ticket ha sido modificado por otro usuario.",
+                    ticketRepository.findVersionById(id).orElse(null));
         } catch (Exception e) {
             logger.error("Error al eliminar el ticket con ID {}: {}", id, e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al eliminar el ticket.");
@@ -161,24 +424,27 @@ public class TicketProductController {
     }
 
     /**
-     * Busca productos por nombre.
+     * Busca productos por nombre. Cada palabra buscada debe ser el comienzo de alguna palabra
+     * del nombre, sin distinguir mayúsculas ni tildes ("lech des" encuentra "Leche desnatada").
      *
      * @param productSearch Término de búsqueda.
      * @param ticketId      ID del ticket.
-     * @return ResponseEntity con los resultados de la búsqueda.
+     * @param pageable      Página y tamaño solicitados (por defecto, los 20 primeros resultados).
+     * @return ResponseEntity con la página de resultados de la búsqueda.
      */
     @GetMapping("/{ticketId}/products/search")
-    public ResponseEntity<?> searchProducts(@RequestParam("q") String productSearch, @PathVariable Long ticketId) {
+    @SqlBudget(2)
+    public ResponseEntity<?> searchProducts(@RequestParam("q") String productSearch, @PathVariable Long ticketId,
+                                            @PageableDefault(size = 20) Pageable pageable) {
         logger.info("Buscando productos que coincidan con '{}'", productSearch);
         try {
-            Optional<Ticket> ticketOpt = ticketRepository.findById(ticketId);
-            if (!ticketOpt.isPresent()) {
+            if (!ticketRepository.existsById(ticketId)) {
                 logger.warn("No se encontró el ticket con ID {}", ticketId);
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No se encontró el ticket.");
             }
 
-            List<Product> searchResults = productRepository.findByNameContainingIgnoreCase(productSearch);
-            logger.info("Se encontraron {} productos.", searchResults.size());
+            Page<ProductDTO> searchResults = productSearchService.search(productSearch, pageable);
+            logger.info("Se encontraron {} productos.", searchResults.getTotalElements());
             return ResponseEntity.ok(searchResults);
         } catch (Exception e) {
             logger.error("Error al buscar productos: {}", e.getMessage());
@@ -187,37 +453,43 @@ public class TicketProductController {
     }
 
     /**
-     * Añade un producto existente a un ticket.
+     * Añade un producto existente a un ticket. Si el ticket ya contiene el producto,
+     * se incrementa la cantidad de su línea; en otro caso se inserta una línea nueva
+     * con el precio actual del producto. Las peticiones simultáneas sobre el mismo ticket
+     * se ejecutan de una en una ({@link TicketService#addProduct}); si aun así siguen en conflicto
+     * tras los reintentos se responde 409.
      *
      * @param ticketId  ID del ticket.
      * @param productId ID del producto.
+     * @param quantity  Número de unidades a añadir (por defecto, una).
      * @param locale    Idioma de los mensajes de error.
      * @return ResponseEntity indicando el resultado de la operación.
      */
     @PostMapping("/{ticketId}/products/{productId}")
     public ResponseEntity<?> addProductToTicket(@PathVariable Long ticketId,
                                                 @PathVariable Long productId,
+                                                @RequestParam(value = "quantity", defaultValue = "1") int quantity,
                                                 Locale locale) {
-        logger.info("Añadiendo producto {} al ticket {}", productId, ticketId);
+        logger.info("Añadiendo {} unidades del producto {} al ticket {}", quantity, productId, ticketId);
+        if (quantity < 1) {
+            logger.warn("Cantidad no válida: {}", quantity);
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("La cantidad debe ser al menos 1.");
+        }
         try {
-            Optional<Ticket> ticketOpt = ticketRepository.findById(ticketId);
-            Optional<Product> productOpt = productRepository.findById(productId);
-
-            if (!ticketOpt.isPresent() || !productOpt.isPresent()) {
-                logger.warn("Ticket o producto no encontrados.");
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Ticket o producto no encontrados.");
-            }
-
-            Ticket ticket = ticketOpt.get();
-            ticket.getProducts().add(productOpt.get());
-            Ticket updatedTicket = ticketRepository.save(ticket);
-
+            TicketDetailDTO updated = ticketService.addProduct(ticketId, productId, quantity);
             logger.info("Producto añadido exitosamente al ticket.");
-            return ResponseEntity.ok(updatedTicket);
+            return ResponseEntity.ok(updated);
+        } catch (NoSuchElementException e) {
+            logger.warn("Ticket o producto no encontrados.");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         } catch (DataIntegrityViolationException e) {
             logger.error("Violación de integridad: {}", e.getMessage());
-            String msg = messageSource.getMessage("msg.ticketcontroller.insert.integrity-violation", null, locale);
+            String msg = messageSource.getMessage("msg.ticket-controller.insert.integrity-violation", null, locale);
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(msg);
+        } catch (ConcurrencyFailureException e) {
+            logger.warn("Conflicto de concurrencia al añadir el producto al ticket {}: {}", ticketId, e.getMessage());
+            return ConditionalRequests.versionConflict("El ticket ha sido modificado por otro usuario.",
+                    ticketRepository.findVersionById(ticketId).orElse(null));
         } catch (Exception e) {
             logger.error("Error al añadir el producto: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al añadir el producto.");
@@ -225,40 +497,34 @@ public class TicketProductController {
     }
 
     /**
-     * Crea un nuevo producto y lo asocia a un ticket.
+     * Crea un nuevo producto y lo asocia a un ticket con una unidad. Con la cabecera If-Match
+     * solo se modifica el ticket si sigue en esa versión; los conflictos se responden con 409.
      *
      * @param ticketId    ID del ticket.
      * @param product     Objeto JSON con los datos del producto.
-     * @return ResponseEntity con el ticket actualizado.
+     * @param ifMatch     ETag de la versión del ticket que el cliente quiere modificar (opcional).
+     * @return ResponseEntity con el ticket actualizado (con su nueva versión como ETag).
      */
     @PostMapping("/{ticketId}/products")
     public ResponseEntity<?> addNewProductToTicket(@PathVariable Long ticketId,
-                                                   @Valid @RequestBody Product product) {
+                                                   @Valid @RequestBody Product product,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.info("Añadiendo nuevo producto '{}' al ticket {}", product.getName(), ticketId);
         try {
-            Optional<Ticket> ticketOpt = ticketRepository.findById(ticketId);
-
-            if (!ticketOpt.isPresent()) {
-                logger.warn("No se encontró el ticket con ID {}", ticketId);
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No se encontró el ticket.");
-            }
-
-            Ticket ticket = ticketOpt.get();
-
-            boolean exists = ticket.getProducts().stream()
-                    .anyMatch(p -> p.getName().equalsIgnoreCase(product.getName()));
-
-            if (exists) {
-                logger.warn("El producto ya existe en el ticket.");
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("El producto ya existe en el ticket.");
-            }
-
-            productRepository.save(product);
-            ticket.getProducts().add(product);
-            Ticket updatedTicket = ticketRepository.save(ticket);
-
-            logger.info("Nuevo producto añadido exitosamente al ticket.");
-            return ResponseEntity.status(HttpStatus.CREATED).body(updatedTicket);
+            TicketDetailDTO updated = ticketService.addNewProduct(ticketId, product, ConditionalRequests.expectedVersion(ifMatch));
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .eTag(ConditionalRequests.versionETag(updated.getVersion()))
+                    .body(updated);
+        } catch (NoSuchElementException e) {
+            logger.warn("No se encontró el ticket con ID {}", ticketId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            logger.warn("El producto ya existe en el ticket.");
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            logger.warn("Conflicto de versiones al añadir un producto nuevo al ticket {}: {}", ticketId, e.getMessage());
+            return ConditionalRequests.versionConflict("El ticket ha sido modificado por otro usuario.",
+                    ticketRepository.findVersionById(ticketId).orElse(null));
         } catch (Exception e) {
             logger.error("Error al añadir nuevo producto: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al añadir el nuevo producto.");
@@ -266,34 +532,48 @@ public class TicketProductController {
     }
 
     /**
-     * Elimina un producto de un ticket.
+     * Elimina un producto de un ticket (su línea completa, con todas sus unidades). Con la
+     * cabecera If-Match solo se modifica el ticket si sigue en esa versión; los conflictos se
+     * responden con 409.
      *
      * @param ticketId  ID del ticket.
      * @param productId ID del producto.
-     * @return ResponseEntity indicando el resultado de la operación.
+     * @param ifMatch   ETag de la versión del ticket que el cliente quiere modificar (opcional).
+     * @return ResponseEntity con el ticket actualizado (con su nueva versión como ETag).
      */
     @DeleteMapping("/{ticketId}/products/{productId}")
     public ResponseEntity<?> removeProductFromTicket(@PathVariable Long ticketId,
-                                                     @PathVariable Long productId) {
+                                                     @PathVariable Long productId,
+                                                     @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         logger.info("Eliminando producto {} del ticket {}", productId, ticketId);
         try {
-            Optional<Ticket> ticketOpt = ticketRepository.findById(ticketId);
-            Optional<Product> productOpt = productRepository.findById(productId);
-
-            if (!ticketOpt.isPresent() || !productOpt.isPresent()) {
-                logger.warn("Ticket o producto no encontrados.");
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Ticket o producto no encontrados.");
-            }
-
-            Ticket ticket = ticketOpt.get();
-            ticket.getProducts().remove(productOpt.get());
-            Ticket updatedTicket = ticketRepository.save(ticket);
-
-            logger.info("Producto eliminado exitosamente del ticket.");
-            return ResponseEntity.ok(updatedTicket);
+            TicketDetailDTO updated = ticketService.removeProduct(ticketId, productId, ConditionalRequests.expectedVersion(ifMatch));
+            return ResponseEntity.ok().eTag(ConditionalRequests.versionETag(updated.getVersion())).body(updated);
+        } catch (NoSuchElementException e) {
+            logger.warn("Ticket o producto no encontrados.");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (OptimisticLockingFailureException e) {
+            logger.warn("Conflicto de versiones al eliminar un producto del ticket {}: {}", ticketId, e.getMessage());
+            return ConditionalRequests.versionConflict("El ticket ha sido modificado por otro usuario.",
+                    ticketRepository.findVersionById(ticketId).orElse(null));
         } catch (Exception e) {
             logger.error("Error al eliminar producto: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al eliminar el producto.");
         }
     }
+
+    /**
+     * Guarda el bloque de la carga masiva si ha alcanzado el tamaño configurado.
+     *
+     * @param batch   Tickets pendientes de guardar, indexados por su posición en la petición.
+     * @param results Resultados de la carga, donde se añaden los del bloque guardado.
+     * @return El bloque a seguir llenando (uno nuevo si se ha guardado el anterior).
+     */
+    private Map<Integer, Ticket> saveBatchIfFull(Map<Integer, Ticket> batch, List<BulkItemResultDTO> results) {
+        if (batch.size() < ticketBulkService.getBatchSize()) {
+            return batch;
+        }
+        results.addAll(ticketBulkService.saveBatch(batch));
+        return new LinkedHashMap<>();
+    }
 }
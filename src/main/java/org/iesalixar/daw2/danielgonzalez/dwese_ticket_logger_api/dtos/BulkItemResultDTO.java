@@ -0,0 +1,31 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Resultado de un elemento de una carga masiva.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkItemResultDTO {
+
+    /**
+     * Posición del elemento en la petición (empezando en 0).
+     */
+    private int index;
+
+    /**
+     * Identificador asignado si el elemento se ha guardado, null en caso contrario.
+     */
+    private Long id;
+
+    /**
+     * Motivo del error si el elemento no se ha guardado, null en caso contrario.
+     */
+    private String error;
+}
@@ -0,0 +1,38 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Resumen de una carga masiva con el resultado de cada elemento.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkResultDTO {
+
+    /**
+     * Número de elementos recibidos.
+     */
+    private int received;
+
+    /**
+     * Número de elementos guardados.
+     */
+    private int created;
+
+    /**
+     * Número de elementos rechazados.
+     */
+    private int failed;
+
+    /**
+     * Resultado de cada elemento, en el orden de la petición.
+     */
+    private List<BulkItemResultDTO> results;
+}
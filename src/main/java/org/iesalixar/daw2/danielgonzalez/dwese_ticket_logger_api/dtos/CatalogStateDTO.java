@@ -0,0 +1,32 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO con el estado agregado de una tabla del catálogo (filas, identificador máximo y suma de
+ * versiones), a partir del cual se genera la ETag de su listado.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogStateDTO {
+
+    /**
+     * Número de filas; cambia al crear o eliminar.
+     */
+    private Long count;
+
+    /**
+     * Identificador más alto (null si la tabla está vacía); cambia al crear aunque se elimine otra fila.
+     */
+    private Long maxId;
+
+    /**
+     * Suma de las versiones (null si la tabla está vacía); cada modificación incrementa una versión.
+     */
+    private Long versionSum;
+}
@@ -0,0 +1,38 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * DTO genérico para los listados paginados por cursor (keyset).
+ *
+ * A diferencia de `Page`, no incluye el número total de elementos (que obligaría a
+ * contar toda la tabla), sino el cursor con el que pedir la página siguiente.
+ *
+ * @param <T> tipo de los elementos de la página.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+
+    /**
+     * Elementos de la página actual.
+     */
+    private List<T> content;
+
+    /**
+     * Cursor para solicitar la página siguiente, o null si no hay más elementos.
+     */
+    private String nextCursor;
+
+    /**
+     * Tamaño de página solicitado.
+     */
+    private int size;
+}
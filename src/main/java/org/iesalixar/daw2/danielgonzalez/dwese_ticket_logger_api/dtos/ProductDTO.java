@@ -0,0 +1,33 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Clase DTO (Data Transfer Object) que representa un producto.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductDTO {
+
+    /**
+     * Identificador único del producto.
+     */
+    private Long id;
+
+    /**
+     * Nombre del producto.
+     */
+    private String name;
+
+    /**
+     * Precio del producto.
+     */
+    private BigDecimal price;
+}
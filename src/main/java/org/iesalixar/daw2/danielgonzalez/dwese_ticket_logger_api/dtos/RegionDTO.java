@@ -36,4 +36,9 @@ public class RegionDTO {
      * Ruta de la imagen de la región.
      */
     private String imagePath;
+
+    /**
+     * Versión de la región (bloqueo optimista). También se envía como ETag.
+     */
+    private Long version;
 }
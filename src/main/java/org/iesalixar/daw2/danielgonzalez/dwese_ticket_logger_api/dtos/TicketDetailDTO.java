@@ -0,0 +1,90 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * DTO con el detalle completo de un ticket: sus datos, su ubicación (con supermercado
+ * y provincia) y sus líneas.
+ *
+ * Se construye a partir de un ticket cargado con todas sus relaciones en una sola consulta
+ * ({@code TicketRepository.findDetailById}), de modo que no depende de una sesión abierta.
+ */
+@Getter
+@Setter
+public class TicketDetailDTO {
+
+    /**
+     * Identificador único del ticket.
+     */
+    private Long id;
+
+    /**
+     * Fecha del ticket.
+     */
+    private Date date;
+
+    /**
+     * Descuento aplicado al ticket (porcentaje).
+     */
+    private BigDecimal discount;
+
+    /**
+     * Suma de los precios de los productos, sin descuento.
+     */
+    private BigDecimal subtotal;
+
+    /**
+     * Total del ticket con el descuento aplicado.
+     */
+    private BigDecimal total;
+
+    /**
+     * Versión del ticket (bloqueo optimista). También se envía como ETag.
+     */
+    private Long version;
+
+    /**
+     * Identificador de la ubicación del ticket.
+     */
+    private Long locationId;
+
+    /**
+     * Dirección de la ubicación del ticket.
+     */
+    private String address;
+
+    /**
+     * Ciudad de la ubicación del ticket.
+     */
+    private String city;
+
+    /**
+     * Identificador del supermercado de la ubicación.
+     */
+    private Long supermarketId;
+
+    /**
+     * Nombre del supermercado de la ubicación.
+     */
+    private String supermarketName;
+
+    /**
+     * Identificador de la provincia de la ubicación.
+     */
+    private Long provinceId;
+
+    /**
+     * Nombre de la provincia de la ubicación.
+     */
+    private String provinceName;
+
+    /**
+     * Líneas del ticket (producto, cantidad y precio unitario).
+     */
+    private List<TicketLineDTO> lines;
+}
@@ -0,0 +1,39 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Clase DTO (Data Transfer Object) que representa una línea de un ticket.
+ */
+@Getter
+@Setter
+public class TicketLineDTO {
+
+    /**
+     * Identificador del producto comprado.
+     */
+    private Long productId;
+
+    /**
+     * Nombre del producto comprado.
+     */
+    private String productName;
+
+    /**
+     * Número de unidades compradas.
+     */
+    private int quantity;
+
+    /**
+     * Precio unitario del producto en el momento de la compra.
+     */
+    private BigDecimal unitPrice;
+
+    /**
+     * Importe de la línea (precio unitario por cantidad).
+     */
+    private BigDecimal amount;
+}
@@ -0,0 +1,62 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * DTO plano con el resumen de un ticket para los listados.
+ *
+ * Se construye directamente en la consulta JPQL (proyección), por lo que no carga
+ * la entidad `Ticket` ni sus relaciones perezosas `location` y `products`.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TicketSummaryDTO {
+
+    /**
+     * Identificador único del ticket.
+     */
+    private Long id;
+
+    /**
+     * Fecha del ticket.
+     */
+    private Date date;
+
+    /**
+     * Descuento aplicado al ticket (porcentaje).
+     */
+    private BigDecimal discount;
+
+    /**
+     * Total del ticket con el descuento aplicado (persistido en la tabla de tickets).
+     */
+    private BigDecimal total;
+
+    /**
+     * Identificador de la ubicación del ticket.
+     */
+    private Long locationId;
+
+    /**
+     * Dirección de la ubicación del ticket.
+     */
+    private String address;
+
+    /**
+     * Ciudad de la ubicación del ticket.
+     */
+    private String city;
+
+    /**
+     * Nombre del supermercado de la ubicación del ticket.
+     */
+    private String supermarketName;
+}
@@ -0,0 +1,27 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO de la respuesta 409 Conflict cuando una actualización se basa en una versión antigua
+ * de la entidad. El cliente puede repetir la operación con la versión actual sin otra consulta.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class VersionConflictDTO {
+
+    /**
+     * Descripción del conflicto.
+     */
+    private String message;
+
+    /**
+     * Versión actual de la entidad (null si ya no existe).
+     */
+    private Long currentVersion;
+}
@@ -1,5 +1,6 @@
 package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
@@ -7,7 +8,6 @@ import jakarta.validation.constraints.Size;
 import lombok.*;
 
 import java.math.BigDecimal;
-import java.util.List;
 /**
  * La clase `Product` representa una entidad que modela un producto.
  * Contiene campos como `id`, `name`, `price` y `category`,
@@ -17,12 +17,13 @@ import java.util.List;
  */
 @Entity
 @Table(name = "products")
+@EntityListeners(ProductEntityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@ToString(exclude = {"category", "tickets"}) // Excluye `category` y `tickets` para evitar ciclos recursivos.
-        @EqualsAndHashCode(exclude = {"category", "tickets"}) // Excluye `category` y`tickets` para evitar problemas de recursión.
+@ToString(exclude = {"category"}) // Excluye `category` para evitar ciclos recursivos.
+        @EqualsAndHashCode(exclude = {"category"}) // Excluye `category` para evitar problemas de recursión.
         public class Product {
             // Identificador único del producto. Es autogenerado y clave primaria.
             @Id
@@ -40,12 +41,14 @@ import java.util.List;
             @Column(name = "price", nullable = false, precision = 10, scale = 2)
             private BigDecimal price;
 
+            // Versión para el bloqueo optimista.
+            @Version
+            @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+            @Column(name = "version", nullable = false)
+            private Long version;
+
             // Categoría asociada al producto.
             //@ManyToOne(fetch = FetchType.LAZY)
             //@JoinColumn(name = "category_id")
             //private Category category;
-
-            // Lista de tickets asociados al producto.
-            @ManyToMany(mappedBy = "products")
-            private List<Ticket> tickets;
         }
@@ -0,0 +1,41 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.events.ProductChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA de la entidad {@link Product} que publica un {@link ProductChangedEvent}
+ * cada vez que un producto se crea, se actualiza o se elimina.
+ */
+@Component
+public class ProductEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Publica el evento de cambio tras crear o actualizar un producto.
+     *
+     * @param product el producto guardado.
+     */
+    @PostPersist
+    @PostUpdate
+    public void onProductSaved(Product product) {
+        eventPublisher.publishEvent(new ProductChangedEvent(this, product.getId(), product.getName(), product.getPrice()));
+    }
+
+    /**
+     * Publica el evento de cambio tras eliminar un producto.
+     *
+     * @param product el producto eliminado.
+     */
+    @PostRemove
+    public void onProductRemoved(Product product) {
+        eventPublisher.publishEvent(new ProductChangedEvent(this, product.getId(), null, null));
+    }
+}
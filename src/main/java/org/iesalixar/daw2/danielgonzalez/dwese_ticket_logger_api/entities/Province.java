@@ -1,6 +1,8 @@
 package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.NotEmpty;
@@ -8,6 +10,8 @@ import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
@@ -25,6 +29,8 @@ import java.util.List;
  */
 @Entity
 @Table(name = "provinces")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -66,7 +72,18 @@ public class Province {
     @JsonIgnoreProperties({"hibernateLazyInitializer", "provinces"}) // Evita problemas de serialización
     private Region region;
 
+    /**
+     * Versión para el bloqueo optimista. Se expone como ETag para las actualizaciones condicionales
+     * y no se acepta en el cuerpo de las peticiones (se usa la cabecera If-Match).
+     */
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     // Relación uno a muchos con la entidad `Location`. Una provincia puede tener muchas ubicaciones.
+    @JsonIgnore // No se serializa: es perezosa y se cargaría fuera de la sesión
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(mappedBy = "province", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Location> locations;
 
@@ -6,12 +6,16 @@ import java.util.List;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Getter
 @Setter
 @NoArgsConstructor // Lombok genera el constructor vacío necesario para JPA
 @Table(name = "regions") // Recomendado para definir el nombre de la tabla explícitamente
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Region {
 
     // Campo que almacena el identificador único de la región.
@@ -33,9 +37,15 @@ public class Region {
     // Ajustado para coincidir con la columna 'image' definida en schema.sql
     @Column(name = "image")
     private String imagePath;
+
+    // Versión para el bloqueo optimista. Se expone como ETag para las actualizaciones condicionales.
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
     
     // Relación uno a muchos con la entidad Province. Una región puede tener muchas provincias.
     @JsonIgnore // Evita ciclo infinito en serialización JSON
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @OneToMany(mappedBy = "region", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Province> provinces;
     
@@ -1,12 +1,15 @@
 package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 /**
@@ -22,12 +25,15 @@ import java.util.List;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@ToString(exclude = {"location", "products"}) // Excluir relaciones para evitar recursión infinita.
-        @EqualsAndHashCode(exclude = {"location", "products"}) // Evitar bucles recursivos en equals y hashCode.
+@ToString(exclude = {"location", "lines"}) // Excluir relaciones para evitar recursión infinita.
+        @EqualsAndHashCode(exclude = {"location", "lines"}) // Evitar bucles recursivos en equals y hashCode.
         public class Ticket {
             // Identificador único del ticket. Es autogenerado y clave primaria.
+            // Se reserva por bloques en la tabla id_generators para que las inserciones puedan agruparse en lotes JDBC.
             @Id
-            @GeneratedValue(strategy = GenerationType.IDENTITY)
+            @GeneratedValue(strategy = GenerationType.TABLE, generator = "tickets_gen")
+            @TableGenerator(name = "tickets_gen", table = "id_generators", pkColumnName = "name",
+                    valueColumnName = "next_val", pkColumnValue = "tickets", allocationSize = 100)
             private Long id;
 
             // Fecha del ticket. No puede ser nula.
@@ -47,37 +53,77 @@ import java.util.List;
             @JoinColumn(name = "location_id", nullable = false)
             private Location location;
 
-            // Lista de productos asociados al ticket.
-            @ManyToMany
-            @JoinTable(
-                    name = "product_ticket",
-                    joinColumns = @JoinColumn(name = "ticket_id"),
-                    inverseJoinColumns = @JoinColumn(name = "product_id")
-            )
-            private List<Product> products;
+            // Líneas del ticket (producto, cantidad y precio unitario en la compra).
+            @Valid
+            @OneToMany(mappedBy = "ticket", cascade = CascadeType.ALL, orphanRemoval = true)
+            private List<TicketLine> lines;
+
+            // Suma de los importes de las líneas, sin descuento. Se mantiene al añadir o quitar líneas.
+            @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+            @Column(name = "subtotal", nullable = false, precision = 12, scale = 2)
+            private BigDecimal subtotal = BigDecimal.ZERO;
+
+            // Total del ticket con el descuento aplicado. Se recalcula al guardar el ticket.
+            @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+            @Column(name = "total", nullable = false, precision = 12, scale = 2)
+            private BigDecimal total = BigDecimal.ZERO;
+
+            // Versión para el bloqueo optimista. Aumenta con cada cambio del ticket o de sus líneas y se expone como ETag.
+            @Version
+            @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+            @Column(name = "version", nullable = false)
+            private Long version;
 
             /**
-             * Calcula el total del ticket sumando los precios de todos los productos.
+             * Añade unidades de un producto a un ticket nuevo. Si el ticket ya tiene una línea
+             * de ese producto se incrementa su cantidad; en otro caso se crea una línea con el
+             * precio actual del producto. El subtotal se actualiza en ambos casos.
              *
-             * @return el total calculado de los productos menos el descuento.
+             * @param product  el producto comprado.
+             * @param quantity el número de unidades.
              */
-            @Transient
-            public BigDecimal getTotal() {
-                if (products == null || products.isEmpty()) {
-                    return BigDecimal.ZERO;
+            public void addLine(Product product, int quantity) {
+                if (lines == null) {
+                    lines = new ArrayList<>();
                 }
-                BigDecimal total = BigDecimal.ZERO;
-                for (Product product : products) {
-                    total = total.add(product.getPrice());
+                TicketLine line = lines.stream()
+                        .filter(l -> l.getProduct().getId().equals(product.getId()))
+                        .findFirst()
+                        .orElse(null);
+                if (line == null) {
+                    line = new TicketLine(this, product, 0);
+                    lines.add(line);
                 }
+                line.setQuantity(line.getQuantity() + quantity);
+                adjustSubtotal(line.getUnitPrice().multiply(BigDecimal.valueOf(quantity)));
+            }
+
+            /**
+             * Suma un importe al subtotal del ticket y recalcula el total. Se usa al añadir
+             * (importe positivo) o quitar (importe negativo) líneas sin cargar el resto de líneas.
+             *
+             * @param amount el importe a sumar al subtotal.
+             */
+            public void adjustSubtotal(BigDecimal amount) {
+                subtotal = (subtotal != null ? subtotal : BigDecimal.ZERO).add(amount);
+                recalculateTotal();
+            }
+
+            /**
+             * Calcula el total a partir del subtotal almacenado aplicando el descuento.
+             * No recorre las líneas del ticket, por lo que no provoca su carga.
+             */
+            @PrePersist
+            @PreUpdate
+            public void recalculateTotal() {
+                BigDecimal amount = subtotal != null ? subtotal : BigDecimal.ZERO;
 
                 // Aplicar descuento si existe
                 if (discount != null && discount.compareTo(BigDecimal.ZERO) > 0) {
                     BigDecimal discountPercentage =
                             discount.divide(BigDecimal.valueOf(100));
-                    total = total.subtract(total.multiply(discountPercentage));
+                    amount = amount.subtract(amount.multiply(discountPercentage));
                 }
-                return total.setScale(2, RoundingMode.HALF_UP);
+                total = amount.setScale(2, RoundingMode.HALF_UP);
             }
         }
-
@@ -0,0 +1,79 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * La clase `TicketLine` representa una línea de un ticket.
+ * Contiene el `ticket` al que pertenece, el `product` comprado, la `quantity`
+ * de unidades y el `unitPrice`, que es el precio del producto en el momento de la compra.
+ * Cada producto aparece como mucho una vez por ticket; comprar más unidades aumenta la cantidad.
+ */
+@Entity
+@Table(name = "ticket_lines")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString(exclude = {"ticket", "product"}) // Excluir relaciones para evitar recursión infinita.
+@EqualsAndHashCode(exclude = {"ticket", "product"}) // Evitar bucles recursivos en equals y hashCode.
+public class TicketLine {
+    // Identificador único de la línea. Es autogenerado y clave primaria.
+    // Se reserva por bloques en la tabla id_generators para que las inserciones puedan agruparse en lotes JDBC.
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "ticket_lines_gen")
+    @TableGenerator(name = "ticket_lines_gen", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "ticket_lines", allocationSize = 100)
+    private Long id;
+
+    // Ticket al que pertenece la línea.
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "ticket_id", nullable = false)
+    private Ticket ticket;
+
+    // Producto comprado.
+    @NotNull(message = "{msg.ticketline.product.notNull}")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id", nullable = false)
+    private Product product;
+
+    // Número de unidades compradas. Al menos una.
+    @Min(value = 1, message = "{msg.ticketline.quantity.min}")
+    @Column(name = "quantity", nullable = false)
+    private int quantity = 1;
+
+    // Precio unitario del producto en el momento de la compra.
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "unit_price", nullable = false, precision = 10, scale = 2)
+    private BigDecimal unitPrice;
+
+    /**
+     * Crea una línea con el precio actual del producto.
+     *
+     * @param ticket   el ticket al que pertenece la línea.
+     * @param product  el producto comprado.
+     * @param quantity el número de unidades.
+     */
+    public TicketLine(Ticket ticket, Product product, int quantity) {
+        this.ticket = ticket;
+        this.product = product;
+        this.quantity = quantity;
+        this.unitPrice = product.getPrice();
+    }
+
+    /**
+     * Calcula el importe de la línea.
+     *
+     * @return el precio unitario multiplicado por la cantidad.
+     */
+    public BigDecimal getAmount() {
+        return unitPrice.multiply(BigDecimal.valueOf(quantity));
+    }
+}
@@ -34,7 +34,7 @@ import java.util.Set;
 @AllArgsConstructor
 @ToString(exclude = "roles") // Excluye roles para evitar problemas de recursión en el toString.
 @EqualsAndHashCode(exclude = "roles") // Excluye roles para evitar recursión en equals y hashCode.
-@EntityListeners(AuditingEntityListener.class) // Habilita las anotaciones de auditoría.
+@EntityListeners({AuditingEntityListener.class, UserEntityListener.class}) // Habilita la auditoría y la invalidación de caches.
         public class User {
             // Campo que almacena el identificador único del usuario. Es autogenerado y clave primaria.
             @Id
@@ -98,5 +98,14 @@ import java.util.Set;
                 this.password = password;
                 this.lastPasswordChangeDate = LocalDateTime.now();
             }
+            /**
+             * Sustituye el hash de la contraseña sin modificar la fecha del último cambio
+             de contraseña. Se usa al recodificar la misma contraseña con otro coste.
+             *
+             * @param encodedPassword Contraseña recodificada del usuario.
+             */
+            public void rehashPassword(String encodedPassword) {
+                this.password = encodedPassword;
+            }
         }
 
@@ -0,0 +1,34 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.events.UserChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener JPA de la entidad {@link User} que publica un {@link UserChangedEvent}
+ * cada vez que se actualiza una columna de un usuario (habilitación, contraseña) o se elimina.
+ *
+ * Los cambios de roles solo modifican la tabla user_roles y no disparan {@code @PostUpdate};
+ * esos, y los hechos fuera de JPA, los detecta la revalidación periódica de la cache
+ * ({@code CustomUserDetailsService#evictStaleUsers}).
+ */
+@Component
+public class UserEntityListener {
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Publica el evento de cambio tras actualizar o eliminar un usuario.
+     *
+     * @param user el usuario modificado.
+     */
+    @PostUpdate
+    @PostRemove
+    public void onUserChanged(User user) {
+        eventPublisher.publishEvent(new UserChangedEvent(this, user.getUsername()));
+    }
+}
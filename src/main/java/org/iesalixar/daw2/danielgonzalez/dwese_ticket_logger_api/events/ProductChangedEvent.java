@@ -0,0 +1,43 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.events;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.math.BigDecimal;
+
+/**
+ * Evento que se publica cuando se crea, modifica o elimina un producto, para que
+ * los índices de búsqueda en memoria se mantengan sincronizados.
+ */
+@Getter
+public class ProductChangedEvent extends ApplicationEvent {
+
+    // Identificador del producto que ha cambiado
+    private final Long productId;
+
+    // Nombre actual del producto (null si se ha eliminado)
+    private final String name;
+
+    // Precio actual del producto (null si se ha eliminado)
+    private final BigDecimal price;
+
+    /**
+     * @param source    objeto que origina el evento.
+     * @param productId identificador del producto que ha cambiado.
+     * @param name      nombre actual del producto, o null si se ha eliminado.
+     * @param price     precio actual del producto, o null si se ha eliminado.
+     */
+    public ProductChangedEvent(Object source, Long productId, String name, BigDecimal price) {
+        super(source);
+        this.productId = productId;
+        this.name = name;
+        this.price = price;
+    }
+
+    /**
+     * @return true si el producto se ha eliminado.
+     */
+    public boolean isRemoved() {
+        return name == null;
+    }
+}
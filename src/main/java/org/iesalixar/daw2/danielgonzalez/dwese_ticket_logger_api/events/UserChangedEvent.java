@@ -0,0 +1,24 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.events;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Evento que se publica cuando cambia un usuario (habilitación, contraseña o roles)
+ * o cuando se elimina, para que se invaliden los datos que se tengan en cache sobre él.
+ */
+@Getter
+public class UserChangedEvent extends ApplicationEvent {
+
+    // Nombre del usuario que ha cambiado
+    private final String username;
+
+    /**
+     * @param source   objeto que origina el evento.
+     * @param username nombre del usuario que ha cambiado.
+     */
+    public UserChangedEvent(Object source, String username) {
+        super(source);
+        this.username = username;
+    }
+}
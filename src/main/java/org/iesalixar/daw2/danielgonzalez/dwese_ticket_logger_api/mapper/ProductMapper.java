@@ -0,0 +1,23 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.mapper;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.ProductDTO;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Product;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ProductMapper {
+
+    /**
+     * Convierte una entidad `Product` a un `ProductDTO`.
+     *
+     * @param product Entidad de producto.
+     * @return DTO correspondiente.
+     */
+    public ProductDTO toDTO(Product product) {
+        ProductDTO dto = new ProductDTO();
+        dto.setId(product.getId());
+        dto.setName(product.getName());
+        dto.setPrice(product.getPrice());
+        return dto;
+    }
+}
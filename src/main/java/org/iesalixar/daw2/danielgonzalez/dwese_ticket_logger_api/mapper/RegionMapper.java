@@ -20,6 +20,7 @@ public class RegionMapper {
         dto.setCode(region.getCode());
         dto.setName(region.getName());
         dto.setImagePath(region.getImagePath());
+        dto.setVersion(region.getVersion());
         return dto;
     }
 
@@ -0,0 +1,57 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.mapper;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.TicketDetailDTO;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.TicketLineDTO;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Location;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Ticket;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.TicketLine;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TicketMapper {
+
+    /**
+     * Convierte una entidad `Ticket` a un `TicketDetailDTO`.
+     * El ticket debe tener cargadas su ubicación (con supermercado y provincia) y sus líneas.
+     *
+     * @param ticket Entidad de ticket.
+     * @return DTO con el detalle del ticket.
+     */
+    public TicketDetailDTO toDetailDTO(Ticket ticket) {
+        TicketDetailDTO dto = new TicketDetailDTO();
+        dto.setId(ticket.getId());
+        dto.setDate(ticket.getDate());
+        dto.setDiscount(ticket.getDiscount());
+        dto.setSubtotal(ticket.getSubtotal());
+        dto.setTotal(ticket.getTotal());
+        dto.setVersion(ticket.getVersion());
+
+        Location location = ticket.getLocation();
+        dto.setLocationId(location.getId());
+        dto.setAddress(location.getAddress());
+        dto.setCity(location.getCity());
+        dto.setSupermarketId(location.getSupermarket().getId());
+        dto.setSupermarketName(location.getSupermarket().getName());
+        dto.setProvinceId(location.getProvince().getId());
+        dto.setProvinceName(location.getProvince().getName());
+
+        dto.setLines(ticket.getLines().stream().map(this::toLineDTO).toList());
+        return dto;
+    }
+
+    /**
+     * Convierte una entidad `TicketLine` a un `TicketLineDTO`.
+     *
+     * @param line Entidad de línea de ticket (con su producto cargado).
+     * @return DTO correspondiente.
+     */
+    public TicketLineDTO toLineDTO(TicketLine line) {
+        TicketLineDTO dto = new TicketLineDTO();
+        dto.setProductId(line.getProduct().getId());
+        dto.setProductName(line.getProduct().getName());
+        dto.setQuantity(line.getQuantity());
+        dto.setUnitPrice(line.getUnitPrice());
+        dto.setAmount(line.getAmount());
+        return dto;
+    }
+}
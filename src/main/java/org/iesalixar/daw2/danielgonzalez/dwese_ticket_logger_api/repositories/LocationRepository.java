@@ -0,0 +1,11 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Location;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Repositorio para la entidad Location que extiende JpaRepository.
+ * Proporciona operaciones CRUD para la entidad Location.
+ */
+public interface LocationRepository extends JpaRepository<Location, Long> {
+}
@@ -1,9 +1,15 @@
 package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.ProductDTO;
 import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repositorio para la entidad Product que extiende JpaRepository.
@@ -21,12 +27,13 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     //List<Product> findByCategoryId(@Param("categoryId") Long categoryId);
 
     /**
-     * Busca una lista de productos cuyo nombre contenga la cadena proporcionada,
-     sin distinguir entre mayúsculas y minúsculas.
+     * Recorre todos los productos como DTO sin cargar las entidades en el contexto de persistencia,
+     * para construir los índices de búsqueda en memoria. Debe consumirse dentro de una transacción.
      *
-     * @param name la cadena a buscar dentro del campo 'name' de los productos.
-     * @return una lista de productos que contienen la cadena especificada,
-    ignorando mayúsculas y minúsculas.
+     * @return un Stream de ProductDTO ordenado por identificador.
      */
-    List<Product> findByNameContainingIgnoreCase(String name);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.ProductDTO(p.id, p.name, p.price) " +
+            "FROM Product p ORDER BY p.id")
+    Stream<ProductDTO> streamAllAsDTO();
 }
@@ -1,12 +1,54 @@
 package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.CatalogStateDTO;
 import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Province;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.List;
+import java.util.Optional;
+
 public interface ProvinceRepository extends JpaRepository<Province, Long> {
 
+    /**
+     * Lista todas las provincias con su región. La consulta se guarda en la cache de consultas
+     * de Hibernate y las entidades en la de segundo nivel.
+     *
+     * @return todas las provincias.
+     */
+    @Override
+    @EntityGraph(attributePaths = "region")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    List<Province> findAll();
+
+    /**
+     * Busca una provincia por su ID cargando también su región. Es una consulta cacheable y no un
+     * {@code find}, porque al encontrar la provincia en la cache de segundo nivel Hibernate no
+     * aplicaría el grafo de carga y la región quedaría como proxy sin inicializar.
+     *
+     * @param id el ID de la provincia.
+     * @return la provincia, si existe.
+     */
+    @Override
+    @Query("SELECT p FROM Province p JOIN FETCH p.region WHERE p.id = :id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<Province> findById(@Param("id") Long id);
+
     @Query("SELECT COUNT(p) > 0 FROM Province p WHERE p.code = :code AND p.id != :id")
     boolean existsProvinceByCodeAndNotId(@Param("code") String code, @Param("id") Long id);
+
+    /**
+     * Obtiene el estado agregado de la tabla de provincias para la ETag de su listado. Al leerse de
+     * la base de datos refleja los cambios hechos desde cualquier instancia.
+     *
+     * @return el número de provincias, el identificador máximo y la suma de sus versiones.
+     */
+    @Query("SELECT new org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.CatalogStateDTO(" +
+            "COUNT(p), MAX(p.id), SUM(p.version)) FROM Province p")
+    CatalogStateDTO findCatalogState();
 }
@@ -1,15 +1,42 @@
 package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.CatalogStateDTO;
 import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Region;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 public interface RegionRepository extends JpaRepository<Region, Long> {
 
+    /**
+     * Lista paginada de regiones. La consulta y su recuento se guardan en la cache de consultas
+     * de Hibernate, que se invalida al modificar la tabla de regiones.
+     *
+     * @param pageable la página solicitada.
+     * @return la página de regiones.
+     */
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Page<Region> findAll(Pageable pageable);
+
     @Query("SELECT COUNT(r) > 0 FROM Region r WHERE r.code = :code")
     boolean existsRegionByCode(@Param("code") String code);
 
     @Query("SELECT COUNT(r) > 0 FROM Region r WHERE r.code = :code AND r.id != :id")
     boolean existsRegionByCodeAndNotId(@Param("code") String code, @Param("id") Long id);
+
+    /**
+     * Obtiene el estado agregado de la tabla de regiones para la ETag de su listado. Al leerse de
+     * la base de datos refleja los cambios hechos desde cualquier instancia.
+     *
+     * @return el número de regiones, el identificador máximo y la suma de sus versiones.
+     */
+    @Query("SELECT new org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.CatalogStateDTO(" +
+            "COUNT(r), MAX(r.id), SUM(r.version)) FROM Region r")
+    CatalogStateDTO findCatalogState();
 }
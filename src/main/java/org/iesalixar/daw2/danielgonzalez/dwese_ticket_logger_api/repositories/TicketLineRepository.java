@@ -0,0 +1,33 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.TicketLine;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+/**
+ * Repositorio para la entidad TicketLine que extiende JpaRepository.
+ * Las búsquedas por ticket y producto usan el índice único (ticket_id, product_id),
+ * de modo que no es necesario cargar todas las líneas de un ticket para modificar una.
+ */
+public interface TicketLineRepository extends JpaRepository<TicketLine, Long> {
+
+    /**
+     * Busca la línea de un producto dentro de un ticket.
+     *
+     * @param ticketId el ID del ticket.
+     * @param productId el ID del producto.
+     * @return un Optional con la línea si el ticket contiene el producto.
+     */
+    Optional<TicketLine> findByTicketIdAndProductId(Long ticketId, Long productId);
+
+    /**
+     * Comprueba si un ticket contiene algún producto con el nombre indicado, sin distinguir
+     * entre mayúsculas y minúsculas.
+     *
+     * @param ticketId el ID del ticket.
+     * @param name el nombre del producto.
+     * @return true si el ticket contiene un producto con ese nombre.
+     */
+    boolean existsByTicketIdAndProductNameIgnoreCase(Long ticketId, String name);
+}
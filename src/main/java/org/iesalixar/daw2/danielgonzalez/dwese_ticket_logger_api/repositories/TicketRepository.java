@@ -1,9 +1,25 @@
 package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.TicketSummaryDTO;
 import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Ticket;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 /**
  * Repositorio para la entidad Ticket que extiende JpaRepository.
  * Proporciona operaciones CRUD y consultas personalizadas para la entidad
@@ -11,6 +27,10 @@ import java.util.List;
  */
 
 public interface TicketRepository extends JpaRepository<Ticket, Long> {
+
+    // Filas que el driver lee de cada vez al recorrer un Stream de tickets
+    String EXPORT_FETCH_SIZE = "1000";
+
     /**
      * Obtiene todos los tickets que tienen un descuento mayor que un valor
      específico.
@@ -20,4 +40,137 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
     especificado.
      */
     List<Ticket> findByDiscountGreaterThan(Float discount);
+
+    /**
+     * Obtiene una página de resúmenes de tickets mediante una única consulta de proyección,
+     * sin cargar las entidades ni sus relaciones perezosas.
+     *
+     * @param pageable la página, el tamaño y la ordenación solicitados.
+     * @return una página de resúmenes de tickets.
+     */
+    @Query(value = "SELECT new org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.TicketSummaryDTO(" +
+            "t.id, t.date, t.discount, t.total, l.id, l.address, l.city, s.name) " +
+            "FROM Ticket t JOIN t.location l JOIN l.supermarket s",
+            countQuery = "SELECT COUNT(t) FROM Ticket t")
+    Page<TicketSummaryDTO> findSummaries(Pageable pageable);
+
+    /**
+     * Obtiene la primera página de resúmenes de tickets ordenados por fecha e identificador
+     * descendentes (paginación por cursor).
+     *
+     * @param limit el número máximo de resúmenes a devolver.
+     * @return una lista de resúmenes de tickets.
+     */
+    @Query("SELECT new org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.TicketSummaryDTO(" +
+            "t.id, t.date, t.discount, t.total, l.id, l.address, l.city, s.name) " +
+            "FROM Ticket t JOIN t.location l JOIN l.supermarket s " +
+            "ORDER BY t.date DESC, t.id DESC")
+    List<TicketSummaryDTO> findFirstSummaries(Limit limit);
+
+    /**
+     * Obtiene los resúmenes de los tickets situados después de la posición {@code (date, id)}
+     * indicada, ordenados por fecha e identificador descendentes (paginación por cursor).
+     * Gracias al índice {@code idx_tickets_date_id} el coste no depende de la profundidad de la página.
+     *
+     * @param date la fecha del último ticket de la página anterior.
+     * @param id el identificador del último ticket de la página anterior.
+     * @param limit el número máximo de resúmenes a devolver.
+     * @return una lista de resúmenes de tickets.
+     */
+    @Query("SELECT new org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.TicketSummaryDTO(" +
+            "t.id, t.date, t.discount, t.total, l.id, l.address, l.city, s.name) " +
+            "FROM Ticket t JOIN t.location l JOIN l.supermarket s " +
+            "WHERE t.date < :date OR (t.date = :date AND t.id < :id) " +
+            "ORDER BY t.date DESC, t.id DESC")
+    List<TicketSummaryDTO> findSummariesBefore(@Param("date") Date date, @Param("id") Long id, Limit limit);
+
+    /**
+     * Recorre los resúmenes de los tickets que cumplen los filtros indicados, ordenados por fecha
+     * e identificador, sin cargarlos todos en memoria: las filas se leen con un cursor de solo avance
+     * en bloques de {@code EXPORT_FETCH_SIZE}. Debe consumirse dentro de una transacción y cerrarse al terminar.
+     *
+     * @param from fecha inicial (incluida) o null para no limitar.
+     * @param to fecha final (excluida) o null para no limitar.
+     * @param locationId el ID de la ubicación o null para todas.
+     * @param supermarketId el ID del supermercado o null para todos.
+     * @return un Stream con los resúmenes de los tickets.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.TicketSummaryDTO(" +
+            "t.id, t.date, t.discount, t.total, l.id, l.address, l.city, s.name) " +
+            "FROM Ticket t JOIN t.location l JOIN l.supermarket s " +
+            "WHERE (:from IS NULL OR t.date >= :from) AND (:to IS NULL OR t.date < :to) " +
+            "AND (:locationId IS NULL OR l.id = :locationId) " +
+            "AND (:supermarketId IS NULL OR s.id = :supermarketId) " +
+            "ORDER BY t.date, t.id")
+    Stream<TicketSummaryDTO> streamSummaries(@Param("from") Date from, @Param("to") Date to,
+                                             @Param("locationId") Long locationId,
+                                             @Param("supermarketId") Long supermarketId);
+
+    /**
+     * Obtiene un ticket con su ubicación, el supermercado y la provincia de esta, y sus líneas
+     * con sus productos cargados en una única consulta, para construir la vista de detalle sin consultas adicionales.
+     *
+     * @param id el identificador del ticket.
+     * @return un Optional con el ticket y sus relaciones cargadas.
+     */
+    @EntityGraph(attributePaths = {"location", "location.supermarket", "location.province", "lines", "lines.product"})
+    @Query("SELECT t FROM Ticket t WHERE t.id = :id")
+    Optional<Ticket> findDetailById(@Param("id") Long id);
+
+    /**
+     * Obtiene un ticket bloqueando su fila hasta el final de la transacción ({@code SELECT ... FOR UPDATE}),
+     * de modo que las escrituras concurrentes sobre sus líneas y su subtotal se ejecutan de una en una.
+     *
+     * @param id el identificador del ticket.
+     * @return un Optional con el ticket bloqueado.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Ticket t WHERE t.id = :id")
+    Optional<Ticket> findByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Obtiene la versión actual de un ticket sin cargar la entidad.
+     *
+     * @param id el identificador del ticket.
+     * @return un Optional con la versión, vacío si el ticket no existe.
+     */
+    @Query("SELECT t.version FROM Ticket t WHERE t.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Obtiene el identificador más alto de la tabla de tickets.
+     *
+     * @return el identificador máximo o null si no hay tickets.
+     */
+    @Query("SELECT MAX(t.id) FROM Ticket t")
+    Long findMaxId();
+
+    /**
+     * Recalcula el subtotal de los tickets de un rango de identificadores a partir de sus líneas.
+     *
+     * @param fromId identificador inicial del rango (incluido).
+     * @param toId identificador final del rango (excluido).
+     * @return el número de tickets actualizados.
+     */
+    @Modifying
+    @Query(value = "UPDATE tickets t SET subtotal = COALESCE((SELECT SUM(tl.quantity * tl.unit_price) " +
+            "FROM ticket_lines tl WHERE tl.ticket_id = t.id), 0) " +
+            "WHERE t.id >= :fromId AND t.id < :toId", nativeQuery = true)
+    int recalculateSubtotals(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    /**
+     * Recalcula el total de los tickets de un rango de identificadores aplicando el descuento al subtotal.
+     *
+     * @param fromId identificador inicial del rango (incluido).
+     * @param toId identificador final del rango (excluido).
+     * @return el número de tickets actualizados.
+     */
+    @Modifying
+    @Query(value = "UPDATE tickets t SET total = ROUND(t.subtotal - t.subtotal * t.discount / 100, 2) " +
+            "WHERE t.id >= :fromId AND t.id < :toId", nativeQuery = true)
+    int recalculateTotals(@Param("fromId") Long fromId, @Param("toId") Long toId);
 }
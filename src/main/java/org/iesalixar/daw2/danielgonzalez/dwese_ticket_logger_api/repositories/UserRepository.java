@@ -2,7 +2,12 @@ package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories;
 
 import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -26,4 +31,32 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return true si existe un usuario con ese nombre, false en caso contrario.
      */
     boolean existsByUsername(String username);
-}
\ No newline at end of file
+
+    /**
+     * Obtiene los nombres de todos los usuarios deshabilitados.
+     *
+     * @return lista con los nombres de usuario deshabilitados.
+     */
+    @Query("SELECT u.username FROM User u WHERE u.enabled = false")
+    List<String> findDisabledUsernames();
+
+    /**
+     * Obtiene el nombre de usuario y la fecha del último cambio de contraseña de los
+     * usuarios que han cambiado su contraseña después de la fecha indicada.
+     *
+     * @param since fecha a partir de la cual se buscan cambios de contraseña.
+     * @return lista de pares [username, lastPasswordChangeDate].
+     */
+    @Query("SELECT u.username, u.lastPasswordChangeDate FROM User u WHERE u.lastPasswordChangeDate > :since")
+    List<Object[]> findPasswordChangesSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Obtiene los datos de autenticación de los usuarios indicados: una fila por cada rol
+     * del usuario (o una sola con el rol a null si no tiene ninguno).
+     *
+     * @param usernames los nombres de usuario a consultar.
+     * @return lista de filas [username, enabled, password, nombre del rol].
+     */
+    @Query("SELECT u.username, u.enabled, u.password, r.name FROM User u LEFT JOIN u.roles r WHERE u.username IN :usernames")
+    List<Object[]> findCredentialsByUsernames(@Param("usernames") Collection<String> usernames);
+}
@@ -0,0 +1,54 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.CatalogStateDTO;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.ProvinceRepository;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.RegionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Genera las ETag de los listados del catálogo a partir de los datos almacenados, de modo que
+ * todas las instancias de la aplicación responden la misma ETag para el mismo contenido.
+ *
+ * Cada tabla aporta una consulta de agregados (filas, identificador máximo y suma de versiones):
+ * crear o eliminar cambia las filas o el identificador máximo y cada modificación hecha con JPA
+ * incrementa la versión de la fila ({@code @Version}). Las sentencias SQL directas o las
+ * actualizaciones masivas que no incrementen la versión no cambian la ETag.
+ */
+@Service
+public class CatalogVersionService {
+
+    @Autowired
+    private RegionRepository regionRepository;
+
+    @Autowired
+    private ProvinceRepository provinceRepository;
+
+    /**
+     * @return la ETag fuerte del listado de regiones.
+     */
+    public String regionsETag() {
+        return "\"r" + stateOf(regionRepository.findCatalogState()) + "\"";
+    }
+
+    /**
+     * Cada provincia incluye su región, así que la ETag depende de ambas tablas.
+     *
+     * @return la ETag fuerte del listado de provincias.
+     */
+    public String provincesETag() {
+        return "\"p" + stateOf(provinceRepository.findCatalogState())
+                + "-r" + stateOf(regionRepository.findCatalogState()) + "\"";
+    }
+
+    /**
+     * Representa el estado de una tabla como {@code filas.idMaximo.sumaDeVersiones}.
+     */
+    private String stateOf(CatalogStateDTO state) {
+        return state.getCount() + "." + orZero(state.getMaxId()) + "." + orZero(state.getVersionSum());
+    }
+
+    private long orZero(Long value) {
+        return value == null ? 0 : value;
+    }
+}
@@ -1,20 +1,69 @@
 package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Role;
 import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.User;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.events.UserChangedEvent;
 import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService, MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CustomUserDetailsService.class);
 
     @Autowired
     private UserRepository userRepository;
 
+    // Si está activo, los UserDetails se sirven desde la cache en lugar de consultar siempre la base de datos
+    private final boolean cacheEnabled;
+
+    // Cache de UserDetails indexada por nombre de usuario, acotada en tamaño y en tiempo
+    private final Cache<String, UserDetails> userCache;
+
+    /**
+     * Crea el servicio con la cache de usuarios configurada.
+     *
+     * @param cacheEnabled activa o desactiva la cache de UserDetails.
+     * @param maxSize      número máximo de usuarios en cache.
+     * @param ttl          tiempo máximo que un usuario permanece en cache desde que se carga.
+     */
+    public CustomUserDetailsService(@Value("${security.user-cache.enabled:true}") boolean cacheEnabled,
+                                    @Value("${security.user-cache.max-size:1000}") long maxSize,
+                                    @Value("${security.user-cache.ttl:5m}") Duration ttl) {
+        this.cacheEnabled = cacheEnabled;
+        this.userCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats() // Habilita los aciertos, fallos y tiempos de carga publicados como métricas
+                .build();
+        logger.info("Cache de usuarios {} (tamaño máximo {}, ttl {})",
+                cacheEnabled ? "activada" : "desactivada", maxSize, ttl);
+    }
+
     /**
      * Carga los detalles del usuario a partir de su nombre de usuario.
      *
@@ -24,6 +73,120 @@ public class CustomUserDetailsService implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        if (!cacheEnabled) {
+            return loadFromDatabase(username);
+        }
+        UserDetails cached = userCache.get(username, this::loadFromDatabase);
+        // Se devuelve una copia: Spring Security borra la contraseña del objeto tras autenticar
+        return org.springframework.security.core.userdetails.User.withUserDetails(cached).build();
+    }
+
+    /**
+     * Guarda la contraseña recodificada de un usuario. Spring Security la invoca tras un
+     * login correcto cuando el hash almacenado usa un coste de BCrypt distinto al configurado.
+     *
+     * @param user        los detalles del usuario autenticado.
+     * @param newPassword la contraseña recodificada con el coste actual.
+     * @return los detalles del usuario con la nueva contraseña.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.findByUsername(user.getUsername()).ifPresent(entity -> {
+            entity.rehashPassword(newPassword); // No cuenta como cambio de contraseña
+            userRepository.save(entity);
+            logger.info("Contraseña del usuario {} recodificada con el coste actual de BCrypt.", user.getUsername());
+        });
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
+                .build();
+    }
+
+    /**
+     * Invalida la entrada en cache de un usuario cuando se confirma un cambio en su entidad
+     * o su eliminación. Se espera al commit para que una carga concurrente no vuelva a
+     * guardar en la cache la fila anterior.
+     *
+     * @param event evento con el nombre del usuario modificado.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        userCache.invalidate(event.getUsername());
+        logger.debug("Usuario {} invalidado en la cache de UserDetails.", event.getUsername());
+    }
+
+    /**
+     * Compara los usuarios en cache con la base de datos e invalida los que se han deshabilitado,
+     * han cambiado de contraseña o de roles, o se han eliminado. Cubre los cambios que no pasan
+     * por la entidad {@link User} (por ejemplo, la tabla user_roles o SQL directo), que no
+     * publican un {@link UserChangedEvent}. Una sola consulta para todos los usuarios en cache.
+     *
+     * @return el número de usuarios invalidados.
+     */
+    public int evictStaleUsers() {
+        if (!cacheEnabled) {
+            return 0;
+        }
+        Map<String, UserDetails> cached = Map.copyOf(userCache.asMap());
+        if (cached.isEmpty()) {
+            return 0;
+        }
+
+        // Estado actual de cada usuario en cache: habilitación, contraseña y roles
+        Map<String, UserDetails> current = new HashMap<>();
+        Map<String, Set<String>> currentRoles = new HashMap<>();
+        for (Object[] row : userRepository.findCredentialsByUsernames(cached.keySet())) {
+            String username = (String) row[0];
+            current.putIfAbsent(username, org.springframework.security.core.userdetails.User.withUsername(username)
+                    .password((String) row[2])
+                    .disabled(!(Boolean) row[1])
+                    .build());
+            Set<String> roles = currentRoles.computeIfAbsent(username, key -> new HashSet<>());
+            if (row[3] != null) {
+                roles.add((String) row[3]);
+            }
+        }
+
+        int evicted = 0;
+        for (Map.Entry<String, UserDetails> entry : cached.entrySet()) {
+            UserDetails user = current.get(entry.getKey());
+            Set<String> cachedRoles = entry.getValue().getAuthorities().stream()
+                    .map(GrantedAuthority::getAuthority)
+                    .collect(Collectors.toSet());
+            boolean stale = user == null
+                    || user.isEnabled() != entry.getValue().isEnabled()
+                    || !user.getPassword().equals(entry.getValue().getPassword())
+                    || !currentRoles.get(entry.getKey()).equals(cachedRoles);
+            if (stale) {
+                // Solo se invalida si la entrada no se ha recargado mientras tanto
+                userCache.asMap().remove(entry.getKey(), entry.getValue());
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            logger.info("{} usuarios invalidados en la cache de UserDetails por cambios en la base de datos.", evicted);
+        }
+        return evicted;
+    }
+
+    /**
+     * Publica las estadísticas de la cache de usuarios en el registro de métricas.
+     *
+     * @param registry el registro de métricas.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, userCache, "users");
+    }
+
+    /**
+     * Consulta el usuario en la base de datos y lo convierte en UserDetails.
+     *
+     * @param username El nombre de usuario a buscar.
+     * @return Un objeto UserDetails con la información de autenticación del usuario.
+     * @throws UsernameNotFoundException Si el usuario no se encuentra en la base de datos.
+     */
+    private UserDetails loadFromDatabase(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado: " + username));
 
@@ -1,16 +1,27 @@
 package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
 import java.util.UUID;
 
 @Service
@@ -18,36 +29,92 @@ public class FileStorageService {
 
     private static final Logger logger = LoggerFactory.getLogger(FileStorageService.class);
 
+    // Tamaño del bloque con el que se copian los archivos subidos
+    private static final int BUFFER_SIZE = 8192;
+
     // Variable de entorno para la ruta de almacenamiento
     @Value("${UPLOAD_PATH}")
     private String uploadPath;
 
+    // Tamaño máximo de un archivo subido, comprobado mientras se copia
+    @Value("${upload.max-size:10MB}")
+    private DataSize maxSize;
+
+    // Tipos de imagen admitidos, detectados por el contenido del archivo
+    @Value("${upload.allowed-types:image/jpeg,image/png,image/gif,image/webp}")
+    private List<String> allowedTypes;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     /**
-     * Guarda un archivo en el sistema de archivos y devuelve el nombre del archivo guardado.
+     * Guarda una imagen subida y devuelve el nombre con el que se ha guardado.
+     *
+     * El contenido se copia por bloques de {@value #BUFFER_SIZE} bytes desde la parte multipart (que el
+     * contenedor ya tiene en disco) a un fichero temporal del directorio de subidas, calculando su SHA-256
+     * por el camino, y al terminar se mueve de forma atómica a su nombre definitivo: nunca se carga el
+     * fichero completo en memoria ni queda a la vista un fichero a medias.
+     *
+     * El tipo se comprueba con los primeros bytes, antes de escribir nada, y el tamaño mientras se copia;
+     * la extensión se toma del tipo detectado y no del nombre enviado por el cliente.
      *
      * @param file El archivo a guardar.
-     * @return El nombre del archivo guardado o null si ocurre un error.
+     * @return El nombre del archivo guardado o null si ocurre un error de E/S.
+     * @throws IllegalArgumentException Si el archivo supera {@code upload.max-size} o no es de un tipo permitido.
      */
     public String saveFile(MultipartFile file) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Path tempFile = null;
         try {
-            // Generar un nombre único para el archivo
-            String fileExtension = getFileExtension(file.getOriginalFilename());
-            String uniqueFileName = UUID.randomUUID().toString() + "." + fileExtension;
+            if (file.getSize() > maxSize.toBytes()) {
+                throw new IllegalArgumentException(tooLargeMessage());
+            }
 
-            // Ruta completa del archivo
-            Path filePath = Paths.get(uploadPath + File.separator + uniqueFileName);
+            // Crear el directorio si no existe; el temporal se crea en él para poder moverlo de forma atómica
+            Path uploadDir = Paths.get(uploadPath);
+            Files.createDirectories(uploadDir);
+            tempFile = uploadDir.resolve(".upload-" + UUID.randomUUID() + ".tmp");
 
-            // Crear los directorios si no existen
-            Files.createDirectories(filePath.getParent());
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[BUFFER_SIZE];
+            String fileExtension;
+            long size = 0;
+            try (InputStream in = file.getInputStream();
+                 OutputStream out = Files.newOutputStream(tempFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                int read = in.readNBytes(buffer, 0, buffer.length);
+                fileExtension = imageExtension(buffer, read);
+                while (read > 0) {
+                    size += read;
+                    if (size > maxSize.toBytes()) {
+                        throw new IllegalArgumentException(tooLargeMessage());
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                    read = in.read(buffer);
+                }
+            }
 
-            // Guardar el archivo en la ruta
-            Files.write(filePath, file.getBytes());
+            // Generar un nombre único para el archivo y publicarlo ya completo
+            String uniqueFileName = UUID.randomUUID() + "." + fileExtension;
+            Files.move(tempFile, uploadDir.resolve(uniqueFileName), StandardCopyOption.ATOMIC_MOVE);
+            tempFile = null;
 
-            logger.info("Archivo {} guardado con éxito.", uniqueFileName);
+            logger.info("Archivo {} guardado con éxito ({} bytes, SHA-256 {}).",
+                    uniqueFileName, size, HexFormat.of().formatHex(digest.digest()));
+            sample.stop(timer("save", "success"));
             return uniqueFileName; // Devolver el nombre del archivo para guardarlo en la base de datos
-        } catch (IOException e) {
+        } catch (IllegalArgumentException e) {
+            logger.warn("Archivo rechazado: {}", e.getMessage());
+            sample.stop(timer("save", "rejected"));
+            throw e;
+        } catch (IOException | NoSuchAlgorithmException e) {
             logger.error("Error al guardar el archivo: {}", e.getMessage());
+            sample.stop(timer("save", "error"));
             return null;
+        } finally {
+            if (tempFile != null) {
+                deleteTempFile(tempFile);
+            }
         }
     }
 
@@ -57,26 +124,92 @@ public class FileStorageService {
      * @param fileName El nombre del archivo a eliminar.
      */
     public void deleteFile(String fileName) {
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
             Path filePath = Paths.get(uploadPath, fileName);
             Files.deleteIfExists(filePath);
             logger.info("Archivo {} eliminado con éxito.", fileName);
+            sample.stop(timer("delete", "success"));
         } catch (IOException e) {
             logger.error("Error al eliminar el archivo {}: {}", fileName, e.getMessage());
+            sample.stop(timer("delete", "error"));
         }
     }
 
     /**
-     * Obtiene la extensión del archivo.
+     * Obtiene el temporizador de las operaciones sobre ficheros.
      *
-     * @param fileName El nombre del archivo.
-     * @return La extensión del archivo o una cadena vacía si no tiene extensión.
+     * @param operation la operación ("save" o "delete").
+     * @param outcome el resultado ("success", "rejected" o "error").
+     * @return el temporizador registrado.
+     */
+    private Timer timer(String operation, String outcome) {
+        return Timer.builder("file.storage")
+                .description("Tiempo de las operaciones de ficheros subidos")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Detecta el tipo de imagen por sus primeros bytes y comprueba que esté permitido.
+     *
+     * @param head   primeros bytes del archivo.
+     * @param length número de bytes leídos.
+     * @return la extensión correspondiente al tipo detectado.
+     * @throws IllegalArgumentException si no es una imagen de un tipo permitido.
+     */
+    private String imageExtension(byte[] head, int length) {
+        String contentType = null;
+        String extension = null;
+        if (startsWith(head, length, 0, 0xFF, 0xD8, 0xFF)) {
+            contentType = "image/jpeg";
+            extension = "jpg";
+        } else if (startsWith(head, length, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            contentType = "image/png";
+            extension = "png";
+        } else if (startsWith(head, length, 0, 'G', 'I', 'F', '8')) {
+            contentType = "image/gif";
+            extension = "gif";
+        } else if (startsWith(head, length, 0, 'R', 'I', 'F', 'F') && startsWith(head, length, 8, 'W', 'E', 'B', 'P')) {
+            contentType = "image/webp";
+            extension = "webp";
+        }
+        if (contentType == null || !allowedTypes.contains(contentType)) {
+            throw new IllegalArgumentException("El archivo no es una imagen de un tipo permitido (" +
+                    String.join(", ", allowedTypes) + ").");
+        }
+        return extension;
+    }
+
+    /**
+     * Comprueba si los bytes leídos contienen la firma indicada a partir de una posición.
+     */
+    private static boolean startsWith(byte[] head, int length, int offset, int... signature) {
+        if (length < offset + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((head[offset + i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String tooLargeMessage() {
+        String limit = maxSize.toMegabytes() > 0 ? maxSize.toMegabytes() + " MB" : maxSize.toKilobytes() + " KB";
+        return "El archivo supera el tamaño máximo permitido (" + limit + ").";
+    }
+
+    /**
+     * Elimina el fichero temporal de una subida fallida o rechazada.
      */
-    private String getFileExtension(String fileName) {
-        if (fileName != null && fileName.contains(".")) {
-            return fileName.substring(fileName.lastIndexOf(".") + 1);
-        } else {
-            return ""; // Sin extensión
+    private void deleteTempFile(Path tempFile) {
+        try {
+            Files.deleteIfExists(tempFile);
+        } catch (IOException e) {
+            logger.warn("No se pudo eliminar el archivo temporal {}: {}", tempFile, e.getMessage());
         }
     }
 }
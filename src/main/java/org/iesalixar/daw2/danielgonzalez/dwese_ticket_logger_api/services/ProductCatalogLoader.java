@@ -0,0 +1,148 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.ProductDTO;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.events.ProductChangedEvent;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.ProductRepository;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.ProductSearchIndex;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.ProductSuggestTrie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Mantiene en memoria las copias de los productos que usan la búsqueda ({@link ProductSearchIndex})
+ * y el autocompletado ({@link ProductSuggestTrie}).
+ *
+ * - Las dos estructuras se cargan a la vez leyendo los productos en streaming una sola vez.
+ * - Se mantienen sincronizadas con los {@link ProductChangedEvent} publicados tras cada commit.
+ * - Los cambios que llegan durante una carga se aplican a las estructuras vigentes y se guardan,
+ *   y se repiten sobre las nuevas justo antes de sustituirlas, para que no se pierdan con la sustitución.
+ * - Se recargan periódicamente si el índice de búsqueda acumula demasiados documentos borrados.
+ */
+@Service
+public class ProductCatalogLoader {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalogLoader.class);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Estructuras vigentes; al recargarlas se sustituyen completas
+    private volatile ProductSearchIndex searchIndex = new ProductSearchIndex();
+    private volatile ProductSuggestTrie suggestTrie = new ProductSuggestTrie();
+
+    // Protege la aplicación de los cambios y la sustitución de las estructuras
+    private final Object changesLock = new Object();
+
+    // Cambios recibidos durante la carga en curso; null si no hay ninguna
+    private List<ProductChangedEvent> pendingChanges;
+
+    /**
+     * Carga los productos al terminar el arranque.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        reload();
+    }
+
+    /**
+     * Construye un índice y un árbol nuevos con todos los productos de la base de datos
+     * y sustituye a los actuales. Las cargas se ejecutan de una en una.
+     */
+    public synchronized void reload() {
+        long start = System.currentTimeMillis();
+        ProductSearchIndex loadedIndex = new ProductSearchIndex();
+        ProductSuggestTrie loadedTrie = new ProductSuggestTrie();
+        synchronized (changesLock) {
+            pendingChanges = new ArrayList<>();
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.executeWithoutResult(status -> {
+            try (Stream<ProductDTO> products = productRepository.streamAllAsDTO()) {
+                products.forEach(product -> {
+                    loadedIndex.put(product.getId(), product.getName());
+                    loadedTrie.put(product);
+                });
+            }
+        });
+        synchronized (changesLock) {
+            // Los cambios confirmados durante la lectura pueden no estar en ella: se repiten en orden
+            pendingChanges.forEach(event -> apply(loadedIndex, loadedTrie, event));
+            searchIndex = loadedIndex;
+            suggestTrie = loadedTrie;
+            pendingChanges = null;
+        }
+        logger.info("Búsqueda y autocompletado de productos cargados con {} productos en {} ms.",
+                loadedIndex.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Recarga los productos si los documentos borrados del índice superan la quinta parte de los vigentes.
+     */
+    @Scheduled(fixedDelayString = "${products.search.compaction-check-ms:600000}",
+            initialDelayString = "${products.search.compaction-check-ms:600000}")
+    public void compactIfNeeded() {
+        ProductSearchIndex current = searchIndex;
+        if (current.deletedCount() > Math.max(1000, current.size() / 5)) {
+            logger.info("Recargando los productos en memoria ({} documentos borrados).", current.deletedCount());
+            reload();
+        }
+    }
+
+    /**
+     * Actualiza el índice y el árbol cuando se confirma el cambio de un producto.
+     *
+     * @param event evento con el producto creado, modificado o eliminado.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (changesLock) {
+            apply(searchIndex, suggestTrie, event);
+            if (pendingChanges != null) {
+                pendingChanges.add(event);
+            }
+        }
+    }
+
+    /**
+     * @return el índice de búsqueda vigente.
+     */
+    public ProductSearchIndex searchIndex() {
+        return searchIndex;
+    }
+
+    /**
+     * @return el árbol de autocompletado vigente.
+     */
+    public ProductSuggestTrie suggestTrie() {
+        return suggestTrie;
+    }
+
+    /**
+     * Aplica el cambio de un producto a un índice y a un árbol.
+     */
+    private void apply(ProductSearchIndex index, ProductSuggestTrie trie, ProductChangedEvent event) {
+        if (event.isRemoved()) {
+            index.remove(event.getProductId());
+            trie.remove(event.getProductId());
+        } else {
+            index.put(event.getProductId(), event.getName());
+            trie.put(new ProductDTO(event.getProductId(), event.getName(), event.getPrice()));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.ProductDTO;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Product;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.mapper.ProductMapper;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.ProductRepository;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.ProductSearchIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio de búsqueda de productos por nombre sobre un índice invertido en memoria
+ * ({@link ProductSearchIndex}), en lugar de un {@code LIKE '%q%'} que recorre toda la tabla.
+ * El índice lo carga y lo mantiene sincronizado {@link ProductCatalogLoader}.
+ */
+@Service
+public class ProductSearchService {
+
+    @Autowired
+    private ProductCatalogLoader productCatalogLoader;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductMapper productMapper;
+
+    @Value("${products.search.max-results:1000}")
+    private int maxResults;
+
+    /**
+     * Busca productos cuyo nombre contenga palabras que empiecen por cada palabra buscada,
+     * sin distinguir mayúsculas ni tildes.
+     *
+     * @param query    el texto buscado.
+     * @param pageable la página solicitada.
+     * @return una página de productos; el total no supera {@code products.search.max-results}.
+     */
+    public Page<ProductDTO> search(String query, Pageable pageable) {
+        ProductSearchIndex.Result result = productCatalogLoader.searchIndex().search(query, (int) pageable.getOffset(),
+                pageable.getPageSize(), maxResults);
+
+        // Solo se consultan por clave primaria los productos de la página, conservando el orden del índice
+        Map<Long, Product> products = productRepository.findAllById(result.productIds()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<ProductDTO> content = result.productIds().stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .map(productMapper::toDTO)
+                .toList();
+        return new PageImpl<>(content, pageable, result.total());
+    }
+}
@@ -0,0 +1,36 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.ProductDTO;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.ProductSuggestTrie;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Servicio de autocompletado de productos servido desde un {@link ProductSuggestTrie} en memoria.
+ *
+ * El árbol lo carga y lo mantiene sincronizado {@link ProductCatalogLoader}, así que las
+ * sugerencias no consultan la base de datos.
+ */
+@Service
+public class ProductSuggestService {
+
+    @Autowired
+    private ProductCatalogLoader productCatalogLoader;
+
+    @Value("${products.suggest.max-limit:20}")
+    private int maxLimit;
+
+    /**
+     * Sugiere productos cuyo nombre, o alguna de sus palabras, empieza por el texto escrito.
+     *
+     * @param query el texto escrito.
+     * @param limit número de sugerencias pedido; se limita a {@code products.suggest.max-limit}.
+     * @return los productos sugeridos.
+     */
+    public List<ProductDTO> suggest(String query, int limit) {
+        return productCatalogLoader.suggestTrie().suggest(query, Math.min(limit, maxLimit));
+    }
+}
@@ -0,0 +1,70 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Province;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Region;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Invalida la cache de segundo nivel de Hibernate de los datos de referencia (regiones y provincias).
+ *
+ * Hibernate actualiza por sí mismo la entidad modificada, pero no las colecciones del lado inverso
+ * (por ejemplo, las provincias de una región al crear una provincia), por lo que tras cada alta,
+ * modificación o baja se eliminan explícitamente la entidad, sus colecciones y las consultas cacheadas.
+ */
+@Service
+public class ReferenceDataCacheService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataCacheService.class);
+
+    // Roles de las colecciones cacheadas, tal como los nombra Hibernate
+    private static final String REGION_PROVINCES = Region.class.getName() + ".provinces";
+    private static final String PROVINCE_LOCATIONS = Province.class.getName() + ".locations";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Invalida una región, su colección de provincias y las consultas cacheadas.
+     *
+     * @param regionId el ID de la región modificada, o null si solo deben invalidarse las consultas.
+     */
+    public void evictRegion(Long regionId) {
+        Cache cache = cache();
+        if (regionId != null) {
+            cache.evictEntityData(Region.class, regionId);
+            cache.evictCollectionData(REGION_PROVINCES, regionId);
+        }
+        cache.evictQueryRegions();
+        logger.debug("Cache de segundo nivel invalidada para la región {}", regionId);
+    }
+
+    /**
+     * Invalida una provincia, su colección de ubicaciones, la colección de provincias de su región
+     * y las consultas cacheadas.
+     *
+     * @param provinceId el ID de la provincia modificada.
+     * @param regionId   el ID de la región a la que pertenece (o pertenecía), puede ser null.
+     */
+    public void evictProvince(Long provinceId, Long regionId) {
+        Cache cache = cache();
+        if (provinceId != null) {
+            cache.evictEntityData(Province.class, provinceId);
+            cache.evictCollectionData(PROVINCE_LOCATIONS, provinceId);
+        }
+        if (regionId != null) {
+            cache.evictCollectionData(REGION_PROVINCES, regionId);
+        }
+        cache.evictQueryRegions();
+        logger.debug("Cache de segundo nivel invalidada para la provincia {} (región {})", provinceId, regionId);
+    }
+
+    private Cache cache() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+}
@@ -10,6 +10,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 
 import jakarta.validation.Valid;
@@ -35,6 +36,9 @@ public class RegionService {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private ReferenceDataCacheService referenceDataCacheService;
+
     /**
      * Obtiene todas las regiones con paginación y las convierte en una página de RegionDTO.
      *
@@ -98,6 +102,7 @@ public class RegionService {
         // Guardar la nueva región
         Region savedRegion = regionRepository.save(region);
         logger.info("Región creada exitosamente con ID {}", savedRegion.getId());
+        referenceDataCacheService.evictRegion(savedRegion.getId());
 
         // Convertir la entidad guardada a DTO y devolverla
         return regionMapper.toDTO(savedRegion);
@@ -108,17 +113,26 @@ public class RegionService {
      *
      * @param id Identificador de la región a actualizar.
      * @param regionCreateDTO DTO que contiene los nuevos datos de la región.
+     * @param expectedVersion Versión de la región que se quiere modificar, o null para no comprobarla.
      * @param locale Idioma para los mensajes de error.
      * @return DTO de la región actualizada.
      * @throws IllegalArgumentException Si la región no existe o el código ya está en uso.
+     * @throws ObjectOptimisticLockingFailureException Si la región ha cambiado desde la versión esperada.
      */
-    public RegionDTO updateRegion(Long id, RegionCreateDTO regionCreateDTO, Locale locale) {
+    public RegionDTO updateRegion(Long id, RegionCreateDTO regionCreateDTO, Long expectedVersion, Locale locale) {
         logger.info("Actualizando región con ID {}", id);
 
         // Buscar la región existente
         Region existingRegion = regionRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("La región no existe."));
 
+        // Comprobar la versión antes de guardar la imagen, para no dejar ficheros huérfanos
+        if (expectedVersion != null && !expectedVersion.equals(existingRegion.getVersion())) {
+            logger.warn("La región con ID {} ha cambiado: versión esperada {}, actual {}",
+                    id, expectedVersion, existingRegion.getVersion());
+            throw new ObjectOptimisticLockingFailureException(Region.class, id);
+        }
+
         // Verificar si el código ya está en uso por otra región
         if (regionRepository.existsRegionByCodeAndNotId(regionCreateDTO.getCode(), id)) {
             String errorMessage = messageSource.getMessage("msg.region-controller.update.codeExist", null, locale);
@@ -142,6 +156,7 @@ public class RegionService {
         // Guardar los cambios
         Region updatedRegion = regionRepository.save(existingRegion);
         logger.info("Región con ID {} actualizada exitosamente.", updatedRegion.getId());
+        referenceDataCacheService.evictRegion(id);
 
         // Convertir la entidad actualizada a DTO y devolverla
         return regionMapper.toDTO(updatedRegion);
@@ -169,5 +184,6 @@ public class RegionService {
         // Eliminar la región
         regionRepository.deleteById(id);
         logger.info("Región con ID {} eliminada exitosamente.", id);
+        referenceDataCacheService.evictRegion(id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,195 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.BulkItemResultDTO;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Location;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Product;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Ticket;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.TicketLine;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.LocationRepository;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.ProductRepository;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.TicketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio de carga masiva de tickets.
+ *
+ * Los tickets se guardan por bloques de {@code tickets.bulk.batch-size}, cada uno en su propia
+ * transacción: los productos y ubicaciones del bloque se consultan una sola vez y las inserciones
+ * de tickets y líneas se agrupan en lotes JDBC ({@code hibernate.jdbc.batch_size}). Si un bloque
+ * falla al guardarse, sus tickets se reintentan de uno en uno para informar del error de cada uno.
+ */
+@Service
+public class TicketBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketBulkService.class);
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${tickets.bulk.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * @return el número de tickets que se guardan en cada transacción.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Valida y guarda un bloque de tickets.
+     *
+     * @param batch los tickets recibidos, indexados por su posición en la petición.
+     * @return el resultado de cada ticket del bloque, en el mismo orden.
+     */
+    public List<BulkItemResultDTO> saveBatch(Map<Integer, Ticket> batch) {
+        Map<Integer, BulkItemResultDTO> results = new LinkedHashMap<>();
+        batch.keySet().forEach(index -> results.put(index, null));
+
+        // Se descartan los tickets con errores de validación antes de consultar la base de datos
+        Map<Integer, Ticket> valid = new LinkedHashMap<>();
+        batch.forEach((index, ticket) -> {
+            String error = validate(ticket);
+            if (error == null) {
+                valid.put(index, ticket);
+            } else {
+                results.put(index, new BulkItemResultDTO(index, null, error));
+            }
+        });
+
+        if (!valid.isEmpty()) {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            try {
+                transaction.executeWithoutResult(status -> saveAll(valid, results));
+            } catch (RuntimeException e) {
+                logger.warn("Error al guardar un bloque de {} tickets, se reintentan de uno en uno: {}",
+                        valid.size(), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                valid.forEach((index, ticket) -> {
+                    try {
+                        transaction.executeWithoutResult(status -> saveAll(Map.of(index, ticket), results));
+                    } catch (RuntimeException ex) {
+                        results.put(index, new BulkItemResultDTO(index, null,
+                                NestedExceptionUtils.getMostSpecificCause(ex).getMessage()));
+                    }
+                });
+            }
+        }
+        return new ArrayList<>(results.values());
+    }
+
+    /**
+     * Construye y guarda los tickets indicados dentro de la transacción actual.
+     * Los tickets con una ubicación o un producto inexistentes se marcan como erróneos.
+     *
+     * @param tickets los tickets válidos, indexados por su posición en la petición.
+     * @param results los resultados del bloque, donde se anota el de cada ticket.
+     */
+    private void saveAll(Map<Integer, Ticket> tickets, Map<Integer, BulkItemResultDTO> results) {
+        // Una consulta para todas las ubicaciones y otra para todos los productos del bloque
+        Set<Long> locationIds = tickets.values().stream()
+                .map(ticket -> ticket.getLocation().getId())
+                .collect(Collectors.toSet());
+        Map<Long, Location> locations = locationRepository.findAllById(locationIds).stream()
+                .collect(Collectors.toMap(Location::getId, Function.identity()));
+        Set<Long> productIds = tickets.values().stream()
+                .flatMap(ticket -> requestedLines(ticket).stream())
+                .map(line -> line.getProduct().getId())
+                .collect(Collectors.toSet());
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        Map<Integer, Ticket> entities = new LinkedHashMap<>();
+        Map<Integer, BulkItemResultDTO> pending = new HashMap<>();
+        tickets.forEach((index, request) -> {
+            Location location = locations.get(request.getLocation().getId());
+            if (location == null) {
+                pending.put(index, new BulkItemResultDTO(index, null,
+                        "No se encontró la ubicación con ID " + request.getLocation().getId()));
+                return;
+            }
+            Ticket ticket = new Ticket();
+            ticket.setDate(request.getDate());
+            ticket.setDiscount(request.getDiscount());
+            ticket.setLocation(location);
+            for (TicketLine line : requestedLines(request)) {
+                Product product = products.get(line.getProduct().getId());
+                if (product == null) {
+                    pending.put(index, new BulkItemResultDTO(index, null,
+                            "No se encontró el producto con ID " + line.getProduct().getId()));
+                    return;
+                }
+                ticket.addLine(product, line.getQuantity());
+            }
+            entities.put(index, ticket);
+        });
+
+        ticketRepository.saveAll(entities.values());
+        ticketRepository.flush();
+        entities.forEach((index, ticket) -> pending.put(index, new BulkItemResultDTO(index, ticket.getId(), null)));
+
+        // Los resultados solo se publican si la transacción llega hasta aquí
+        results.putAll(pending);
+    }
+
+    /**
+     * Comprueba las restricciones de un ticket recibido y de sus líneas.
+     *
+     * @param ticket el ticket recibido.
+     * @return el motivo del error o null si el ticket es válido.
+     */
+    private String validate(Ticket ticket) {
+        Set<ConstraintViolation<Ticket>> violations = validator.validate(ticket);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .collect(Collectors.joining(", "));
+        }
+        if (ticket.getLocation() == null || ticket.getLocation().getId() == null) {
+            return "location: la ubicación es obligatoria";
+        }
+        boolean missingProduct = requestedLines(ticket).stream()
+                .map(TicketLine::getProduct)
+                .anyMatch(product -> product == null || product.getId() == null);
+        return missingProduct ? "lines: cada línea debe indicar el producto" : null;
+    }
+
+    /**
+     * @param ticket el ticket recibido.
+     * @return las líneas recibidas del ticket, o una lista vacía si no tiene.
+     */
+    private List<TicketLine> requestedLines(Ticket ticket) {
+        return ticket.getLines() == null ? List.of()
+                : ticket.getLines().stream().filter(Objects::nonNull).toList();
+    }
+}
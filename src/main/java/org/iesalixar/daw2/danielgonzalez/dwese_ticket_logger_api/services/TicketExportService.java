@@ -0,0 +1,119 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.TicketSummaryDTO;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.TicketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Servicio de exportación de tickets para contabilidad.
+ *
+ * Los tickets se leen de la base de datos con un cursor de solo avance y se escriben fila a fila
+ * en la respuesta, por lo que la memoria usada no depende del número de tickets exportados.
+ */
+@Service
+public class TicketExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketExportService.class);
+
+    // Cabecera de la exportación en CSV
+    private static final String CSV_HEADER = "id,date,discount,total,location_id,address,city,supermarket";
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    /**
+     * Escribe los tickets que cumplen los filtros como NDJSON (un objeto JSON por línea).
+     *
+     * @param from          fecha inicial (incluida) o null.
+     * @param to            fecha final (excluida) o null.
+     * @param locationId    ID de la ubicación o null.
+     * @param supermarketId ID del supermercado o null.
+     * @param out           flujo de salida de la respuesta.
+     * @return el número de tickets exportados.
+     * @throws IOException si falla la escritura en el flujo de salida.
+     */
+    @Transactional(readOnly = true)
+    public long exportNdjson(Date from, Date to, Long locationId, Long supermarketId, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        long count = 0;
+        try (Stream<TicketSummaryDTO> tickets = ticketRepository.streamSummaries(from, to, locationId, supermarketId)) {
+            Iterator<TicketSummaryDTO> iterator = tickets.iterator();
+            while (iterator.hasNext()) {
+                writer.write(jsonMapper.writeValueAsString(iterator.next()));
+                writer.write('\n');
+                count++;
+            }
+        }
+        writer.flush();
+        logger.info("Exportados {} tickets en NDJSON.", count);
+        return count;
+    }
+
+    /**
+     * Escribe los tickets que cumplen los filtros como CSV con cabecera.
+     *
+     * @param from          fecha inicial (incluida) o null.
+     * @param to            fecha final (excluida) o null.
+     * @param locationId    ID de la ubicación o null.
+     * @param supermarketId ID del supermercado o null.
+     * @param out           flujo de salida de la respuesta.
+     * @return el número de tickets exportados.
+     * @throws IOException si falla la escritura en el flujo de salida.
+     */
+    @Transactional(readOnly = true)
+    public long exportCsv(Date from, Date to, Long locationId, Long supermarketId, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long count = 0;
+        try (Stream<TicketSummaryDTO> tickets = ticketRepository.streamSummaries(from, to, locationId, supermarketId)) {
+            Iterator<TicketSummaryDTO> iterator = tickets.iterator();
+            while (iterator.hasNext()) {
+                TicketSummaryDTO ticket = iterator.next();
+                writer.write(ticket.getId() + "," + ticket.getDate().toInstant() + "," + ticket.getDiscount() + ","
+                        + ticket.getTotal() + "," + ticket.getLocationId() + "," + csv(ticket.getAddress()) + ","
+                        + csv(ticket.getCity()) + "," + csv(ticket.getSupermarketName()));
+                writer.write('\n');
+                count++;
+            }
+        }
+        writer.flush();
+        logger.info("Exportados {} tickets en CSV.", count);
+        return count;
+    }
+
+    /**
+     * Escapa un valor de texto para CSV: se entrecomilla si contiene separadores,
+     * comillas o saltos de línea, duplicando las comillas internas.
+     *
+     * @param value el valor a escapar.
+     * @return el valor listo para escribir en una celda CSV.
+     */
+    private String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n") || value.contains("\r")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
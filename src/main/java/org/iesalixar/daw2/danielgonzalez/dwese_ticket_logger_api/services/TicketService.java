@@ -0,0 +1,283 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.TicketDetailDTO;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Location;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Product;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Ticket;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.TicketLine;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.mapper.TicketMapper;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.LocationRepository;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.ProductRepository;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.TicketLineRepository;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.TicketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Servicio de escritura de tickets y de sus líneas.
+ *
+ * Cada operación se ejecuta en su propia transacción: las líneas, el subtotal y el total del
+ * ticket se guardan de forma atómica. Los errores se propagan al controlador, que los convierte
+ * en la respuesta HTTP una vez terminada (y, si procede, deshecha) la transacción:
+ * - {@link NoSuchElementException} si el ticket o el producto no existen.
+ * - {@link IllegalArgumentException} si los datos recibidos no son válidos.
+ * - {@link DataIntegrityViolationException} si la base de datos rechaza el cambio.
+ * - {@link OptimisticLockingFailureException} si otro usuario ha modificado el ticket a la vez.
+ */
+@Service
+public class TicketService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketService.class);
+
+    // Intentos al añadir un producto que compite con otra petición por la misma línea o el mismo ticket
+    private static final int ADD_PRODUCT_ATTEMPTS = 3;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TicketLineRepository ticketLineRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private TicketMapper ticketMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Crea un ticket con sus líneas. Las líneas toman el precio almacenado del producto, no el
+     * enviado por el cliente, y un mismo producto repetido se agrupa en una sola línea.
+     *
+     * @param ticket el ticket recibido, con sus líneas.
+     * @return el detalle del ticket creado.
+     * @throws NoSuchElementException si alguno de los productos no existe.
+     */
+    @Transactional
+    public TicketDetailDTO createTicket(Ticket ticket) {
+        List<TicketLine> requestedLines = ticket.getLines() == null ? List.of() : ticket.getLines();
+        Map<Long, Product> products = productRepository.findAllById(requestedLines.stream()
+                        .map(line -> line.getProduct().getId()).toList()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        ticket.setLocation(locationReference(ticket.getLocation()));
+        ticket.setLines(new ArrayList<>());
+        for (TicketLine requested : requestedLines) {
+            Product product = products.get(requested.getProduct().getId());
+            if (product == null) {
+                throw new NoSuchElementException("No se encontró el producto.");
+            }
+            ticket.addLine(product, requested.getQuantity());
+        }
+        Ticket savedTicket = ticketRepository.save(ticket);
+        logger.info("Ticket creado exitosamente con ID {}", savedTicket.getId());
+        return ticketMapper.toDetailDTO(ticketRepository.findDetailById(savedTicket.getId()).get());
+    }
+
+    /**
+     * Actualiza la fecha, el descuento y la ubicación de un ticket, conservando sus líneas y su
+     * subtotal; el total se recalcula al guardar.
+     *
+     * @param id              ID del ticket.
+     * @param ticket          el ticket recibido con los nuevos datos.
+     * @param expectedVersion versión que el cliente quiere modificar (If-Match) o null para no comprobarla.
+     * @return el detalle del ticket actualizado, con su nueva versión.
+     * @throws NoSuchElementException           si el ticket no existe.
+     * @throws OptimisticLockingFailureException si el ticket no está en la versión esperada o
+     *                                           otro usuario lo modifica a la vez.
+     */
+    @Transactional
+    public TicketDetailDTO updateTicket(Long id, Ticket ticket, Long expectedVersion) {
+        Ticket existing = ticketRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("El ticket no existe."));
+        checkVersion(existing, expectedVersion);
+        existing.setDate(ticket.getDate());
+        existing.setDiscount(ticket.getDiscount());
+        existing.setLocation(locationReference(ticket.getLocation()));
+        // Se sincroniza ya para devolver la nueva versión y detectar aquí las escrituras concurrentes
+        ticketRepository.saveAndFlush(existing);
+        logger.info("Ticket con ID {} actualizado exitosamente a la versión {}.", id, existing.getVersion());
+        return ticketMapper.toDetailDTO(ticketRepository.findDetailById(id).get());
+    }
+
+    /**
+     * Elimina un ticket con todas sus líneas.
+     *
+     * @param id              ID del ticket.
+     * @param expectedVersion versión que el cliente quiere eliminar (If-Match) o null para no comprobarla.
+     * @throws NoSuchElementException           si el ticket no existe.
+     * @throws OptimisticLockingFailureException si el ticket no está en la versión esperada o
+     *                                           otro usuario lo modifica a la vez.
+     */
+    @Transactional
+    public void deleteTicket(Long id, Long expectedVersion) {
+        Ticket ticket = ticketRepository.findById(id)
+                .orElseThrow(() -> new NoSuchElementException("El ticket no existe."));
+        checkVersion(ticket, expectedVersion);
+        ticketRepository.delete(ticket);
+        // El borrado comprueba la versión: una modificación concurrente se detecta aquí
+        ticketRepository.flush();
+        logger.info("Ticket con ID {} eliminado exitosamente.", id);
+    }
+
+    /**
+     * Añade unidades de un producto existente a un ticket. Si el ticket ya contiene el producto
+     * se incrementa la cantidad de su línea; en otro caso se inserta una línea nueva con el
+     * precio actual del producto.
+     *
+     * La fila del ticket se bloquea antes de consultar la línea, así que las peticiones simultáneas
+     * sobre el mismo ticket se ejecutan de una en una y cada una ve la línea y el subtotal que dejó
+     * la anterior. Si aun así la base de datos rechaza el cambio (índice único
+     * {@code (ticket_id, product_id)}, versión del ticket o espera de bloqueo agotada), la
+     * transacción se deshace y se repite en una nueva.
+     *
+     * @param ticketId  ID del ticket.
+     * @param productId ID del producto.
+     * @param quantity  número de unidades a añadir.
+     * @return el detalle del ticket actualizado.
+     * @throws NoSuchElementException si el ticket o el producto no existen.
+     */
+    public TicketDetailDTO addProduct(Long ticketId, Long productId, int quantity) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.execute(status -> addProductInTransaction(ticketId, productId, quantity));
+            } catch (DataIntegrityViolationException | ConcurrencyFailureException e) {
+                if (attempt >= ADD_PRODUCT_ATTEMPTS) {
+                    throw e;
+                }
+                logger.warn("Conflicto al añadir el producto {} al ticket {} (intento {}), se repite: {}",
+                        productId, ticketId, attempt, e.getClass().getSimpleName());
+            }
+        }
+    }
+
+    /**
+     * Crea un producto nuevo y lo añade a un ticket con una unidad.
+     *
+     * @param ticketId        ID del ticket.
+     * @param product         el producto a crear.
+     * @param expectedVersion versión del ticket que el cliente quiere modificar (If-Match) o null.
+     * @return el detalle del ticket actualizado.
+     * @throws NoSuchElementException           si el ticket no existe.
+     * @throws IllegalArgumentException         si el ticket ya contiene un producto con ese nombre.
+     * @throws OptimisticLockingFailureException si el ticket no está en la versión esperada o
+     *                                           otro usuario lo modifica a la vez.
+     */
+    @Transactional
+    public TicketDetailDTO addNewProduct(Long ticketId, Product product, Long expectedVersion) {
+        Ticket ticket = ticketRepository.findByIdForUpdate(ticketId)
+                .orElseThrow(() -> new NoSuchElementException("No se encontró el ticket."));
+        checkVersion(ticket, expectedVersion);
+        if (ticketLineRepository.existsByTicketIdAndProductNameIgnoreCase(ticketId, product.getName())) {
+            throw new IllegalArgumentException("El producto ya existe en el ticket.");
+        }
+        productRepository.save(product);
+        TicketLine line = ticketLineRepository.save(new TicketLine(ticket, product, 1));
+        ticket.adjustSubtotal(line.getAmount());
+        ticketRepository.saveAndFlush(ticket);
+        logger.info("Nuevo producto añadido exitosamente al ticket {}.", ticketId);
+        return ticketMapper.toDetailDTO(ticketRepository.findDetailById(ticketId).get());
+    }
+
+    /**
+     * Elimina de un ticket la línea de un producto, con todas sus unidades.
+     *
+     * @param ticketId        ID del ticket.
+     * @param productId       ID del producto.
+     * @param expectedVersion versión del ticket que el cliente quiere modificar (If-Match) o null.
+     * @return el detalle del ticket actualizado.
+     * @throws NoSuchElementException           si el ticket no existe o no contiene el producto.
+     * @throws OptimisticLockingFailureException si el ticket no está en la versión esperada o
+     *                                           otro usuario lo modifica a la vez.
+     */
+    @Transactional
+    public TicketDetailDTO removeProduct(Long ticketId, Long productId, Long expectedVersion) {
+        Optional<Ticket> ticketOpt = ticketRepository.findByIdForUpdate(ticketId);
+        Optional<TicketLine> lineOpt = ticketLineRepository.findByTicketIdAndProductId(ticketId, productId);
+        if (ticketOpt.isEmpty() || lineOpt.isEmpty()) {
+            throw new NoSuchElementException("Ticket o producto no encontrados.");
+        }
+        Ticket ticket = ticketOpt.get();
+        checkVersion(ticket, expectedVersion);
+        TicketLine line = lineOpt.get();
+        ticketLineRepository.delete(line);
+        ticket.adjustSubtotal(line.getAmount().negate());
+        ticketRepository.saveAndFlush(ticket);
+        logger.info("Producto {} eliminado exitosamente del ticket {}.", productId, ticketId);
+        return ticketMapper.toDetailDTO(ticketRepository.findDetailById(ticketId).get());
+    }
+
+    /**
+     * Un intento de {@link #addProduct}, dentro de la transacción actual.
+     */
+    private TicketDetailDTO addProductInTransaction(Long ticketId, Long productId, int quantity) {
+        Ticket ticket = ticketRepository.findByIdForUpdate(ticketId)
+                .orElseThrow(() -> new NoSuchElementException("Ticket o producto no encontrados."));
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new NoSuchElementException("Ticket o producto no encontrados."));
+
+        // Solo se consulta la línea de este producto, no todas las del ticket
+        Optional<TicketLine> lineOpt = ticketLineRepository.findByTicketIdAndProductId(ticketId, productId);
+        TicketLine line;
+        if (lineOpt.isPresent()) {
+            line = lineOpt.get();
+            line.setQuantity(line.getQuantity() + quantity);
+        } else {
+            line = ticketLineRepository.save(new TicketLine(ticket, product, quantity));
+        }
+        ticket.adjustSubtotal(line.getUnitPrice().multiply(BigDecimal.valueOf(quantity)));
+        // Se sincroniza aquí para que un conflicto se detecte dentro del intento y pueda repetirse
+        ticketRepository.saveAndFlush(ticket);
+        logger.info("{} unidades del producto {} añadidas al ticket {}.", quantity, productId, ticketId);
+        return ticketMapper.toDetailDTO(ticketRepository.findDetailById(ticketId).get());
+    }
+
+    /**
+     * Comprueba que el ticket está en la versión que el cliente quiere modificar (cabecera If-Match).
+     *
+     * @param ticket          el ticket cargado.
+     * @param expectedVersion la versión esperada o null para no comprobarla.
+     * @throws ObjectOptimisticLockingFailureException si la versión no coincide.
+     */
+    private void checkVersion(Ticket ticket, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(ticket.getVersion())) {
+            logger.warn("El ticket con ID {} ha cambiado: versión esperada {}, actual {}",
+                    ticket.getId(), expectedVersion, ticket.getVersion());
+            throw new ObjectOptimisticLockingFailureException(Ticket.class, ticket.getId());
+        }
+    }
+
+    /**
+     * Obtiene una referencia gestionada a la ubicación enviada en el cuerpo de la petición,
+     * de la que solo se usa el identificador.
+     *
+     * @param location Ubicación recibida (puede ser null).
+     * @return Referencia a la ubicación o null si no se indicó ninguna.
+     */
+    private Location locationReference(Location location) {
+        return location == null || location.getId() == null ? null : locationRepository.getReferenceById(location.getId());
+    }
+}
@@ -0,0 +1,76 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.TicketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Tarea de un solo uso que rellena el subtotal y el total persistidos de los tickets
+ * existentes a partir de sus líneas.
+ *
+ * Se activa con {@code tickets.totals.backfill.enabled=true} y recorre la tabla por rangos
+ * de identificadores, cada uno en su propia transacción, para no bloquear toda la tabla.
+ * Una vez rellenados, los totales se mantienen al añadir o quitar líneas.
+ */
+@Service
+public class TicketTotalsBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketTotalsBackfillService.class);
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${tickets.totals.backfill.enabled:false}")
+    private boolean backfillEnabled;
+
+    @Value("${tickets.totals.backfill.chunk-size:1000}")
+    private long chunkSize;
+
+    /**
+     * Lanza el relleno al terminar el arranque si está activado.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (backfillEnabled) {
+            backfill();
+        }
+    }
+
+    /**
+     * Recalcula el subtotal y el total de todos los tickets.
+     *
+     * @return el número de tickets actualizados.
+     */
+    public long backfill() {
+        Long maxId = ticketRepository.findMaxId();
+        if (maxId == null) {
+            logger.info("No hay tickets cuyos totales rellenar.");
+            return 0;
+        }
+
+        logger.info("Rellenando los totales de los tickets hasta el ID {} en bloques de {}.", maxId, chunkSize);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long updated = 0;
+        for (long fromId = 0; fromId <= maxId; fromId += chunkSize) {
+            long from = fromId;
+            long to = fromId + chunkSize;
+            Integer rows = transaction.execute(status -> {
+                ticketRepository.recalculateSubtotals(from, to);
+                return ticketRepository.recalculateTotals(from, to);
+            });
+            updated += rows == null ? 0 : rows;
+        }
+        logger.info("Totales rellenados en {} tickets.", updated);
+        return updated;
+    }
+}
@@ -0,0 +1,111 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.UserRepository;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.JwtPrincipal;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.JwtUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Servicio que mantiene en memoria la información necesaria para invalidar tokens JWT
+ * en el modo de autenticación sin estado, sin consultar la base de datos en cada petición.
+ *
+ * Se refresca periódicamente en segundo plano con:
+ * - Los usuarios deshabilitados, cuyos tokens dejan de aceptarse.
+ * - Los cambios de contraseña recientes, que revocan los tokens emitidos antes del cambio.
+ *
+ * Con el mismo intervalo, y en ambos modos, invalida en la cache de UserDetails los usuarios
+ * deshabilitados o con cambios de contraseña o de roles ({@link CustomUserDetailsService#evictStaleUsers()}).
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Value("${jwt.auth.stateless:false}")
+    private boolean statelessEnabled;
+
+    // Instantáneas inmutables que se sustituyen completas en cada refresco
+    private volatile Set<String> disabledUsers = Set.of();
+    private volatile Map<String, Instant> passwordChanges = Map.of();
+
+    /**
+     * Recarga desde la base de datos los usuarios deshabilitados y los cambios de contraseña
+     * producidos durante la vida máxima de un token (solo en modo sin estado) e invalida los
+     * usuarios modificados en la cache de UserDetails.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${jwt.revocation.refresh-ms:30000}")
+    public void refresh() {
+        if (statelessEnabled) {
+            refreshRevocations();
+        }
+        try {
+            userDetailsService.evictStaleUsers();
+        } catch (Exception e) {
+            logger.error("Error al revalidar la cache de usuarios: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Sustituye la instantánea de usuarios deshabilitados y cambios de contraseña.
+     */
+    private void refreshRevocations() {
+        try {
+            Set<String> disabled = Set.copyOf(userRepository.findDisabledUsernames());
+
+            // Los tokens emitidos antes de este instante ya han expirado, no hace falta revocarlos
+            LocalDateTime since = LocalDateTime.now().minus(JwtUtil.JWT_EXPIRATION, ChronoUnit.MILLIS);
+            List<Object[]> changes = userRepository.findPasswordChangesSince(since);
+            Map<String, Instant> changed = new HashMap<>();
+            for (Object[] row : changes) {
+                LocalDateTime changeDate = (LocalDateTime) row[1];
+                // El claim "iat" tiene precisión de segundos, así que se trunca también el cambio
+                changed.put((String) row[0], changeDate.atZone(ZoneId.systemDefault()).toInstant()
+                        .truncatedTo(ChronoUnit.SECONDS));
+            }
+
+            disabledUsers = disabled;
+            passwordChanges = Map.copyOf(changed);
+            logger.debug("Lista de revocación actualizada: {} usuarios deshabilitados, {} cambios de contraseña.",
+                    disabled.size(), changed.size());
+        } catch (Exception e) {
+            // Se conserva la última instantánea válida hasta el siguiente refresco
+            logger.error("Error al actualizar la lista de revocación de tokens: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Verifica si un token verificado debe rechazarse porque su usuario está deshabilitado
+     * o porque se emitió antes del último cambio de contraseña.
+     *
+     * @param principal el principal verificado del token JWT.
+     * @return true si el token está revocado, false en caso contrario.
+     */
+    public boolean isRevoked(JwtPrincipal principal) {
+        if (disabledUsers.contains(principal.getSubject())) {
+            return true;
+        }
+        Instant passwordChange = passwordChanges.get(principal.getSubject());
+        return passwordChange != null
+                && (principal.getIssuedAt() == null || principal.getIssuedAt().isBefore(passwordChange));
+    }
+}
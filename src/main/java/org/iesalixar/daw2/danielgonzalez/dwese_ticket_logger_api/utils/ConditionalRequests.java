@@ -0,0 +1,121 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.VersionConflictDTO;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Utilidades para las peticiones condicionales: lecturas con If-None-Match / If-Modified-Since
+ * respondidas antes de generar la respuesta, y escrituras con If-Match sobre la versión de la entidad.
+ */
+public final class ConditionalRequests {
+
+    private ConditionalRequests() {
+    }
+
+    /**
+     * Construye la política Cache-Control de un endpoint: respuestas privadas (dependen del usuario
+     * autenticado) que pueden reutilizarse durante {@code maxAge}; con 0 deben revalidarse siempre.
+     *
+     * @param maxAge tiempo durante el que el cliente puede reutilizar la respuesta sin preguntar.
+     * @return la política de cache.
+     */
+    public static CacheControl cacheControl(Duration maxAge) {
+        if (maxAge == null || maxAge.isZero() || maxAge.isNegative()) {
+            return CacheControl.noCache().cachePrivate();
+        }
+        return CacheControl.maxAge(maxAge).cachePrivate();
+    }
+
+    /**
+     * Construye la política Cache-Control de un recurso cuya URL nunca cambia de contenido (por
+     * ejemplo, un fichero con nombre UUID): como {@link #cacheControl(Duration)}, pero marcada como
+     * {@code immutable} para que el cliente no lo revalide ni al recargar la página.
+     *
+     * @param maxAge tiempo durante el que el cliente puede reutilizar el recurso.
+     * @return la política de cache.
+     */
+    public static CacheControl immutableCacheControl(Duration maxAge) {
+        if (maxAge == null || maxAge.isZero() || maxAge.isNegative()) {
+            return cacheControl(maxAge);
+        }
+        return cacheControl(maxAge).immutable();
+    }
+
+    /**
+     * Comprueba si el cliente ya tiene la representación actual. En ese caso deja preparada
+     * la respuesta 304 con ETag, Last-Modified y Cache-Control, y el controlador debe devolver null.
+     *
+     * @param request      la petición actual.
+     * @param etag         ETag fuerte de la representación actual.
+     * @param lastModified instante de su última modificación o null si no se conoce (solo ETag).
+     * @param cacheControl política de cache del endpoint.
+     * @return true si la respuesta es 304 Not Modified.
+     */
+    public static boolean notModified(ServletWebRequest request, String etag, Instant lastModified,
+                                      CacheControl cacheControl) {
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        }
+        return lastModified == null ? request.checkNotModified(etag)
+                : request.checkNotModified(etag, lastModified.toEpochMilli());
+    }
+
+    /**
+     * Construye la ETag fuerte correspondiente a la versión de una entidad.
+     *
+     * @param version la versión de la entidad.
+     * @return la ETag, por ejemplo {@code "3"}.
+     */
+    public static String versionETag(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Obtiene la versión esperada por el cliente a partir de la cabecera If-Match.
+     * Se acepta una única ETag de versión, fuerte o débil ({@code "3"} o {@code W/"3"}).
+     *
+     * @param ifMatch el valor de la cabecera If-Match, puede ser null.
+     * @return la versión esperada, null si la cabecera no se envía o es {@code *} (cualquier versión),
+     *         o -1 si no corresponde a ninguna versión (la comprobación fallará).
+     */
+    public static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String etag = ifMatch.trim();
+        if (etag.startsWith("W/")) {
+            etag = etag.substring(2);
+        }
+        if (etag.length() >= 2 && etag.startsWith("\"") && etag.endsWith("\"")) {
+            etag = etag.substring(1, etag.length() - 1);
+        }
+        try {
+            return Long.parseLong(etag);
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * Construye la respuesta 409 Conflict de una actualización sobre una versión antigua,
+     * con la versión actual en el cuerpo y como ETag.
+     *
+     * @param message        descripción del conflicto.
+     * @param currentVersion la versión actual de la entidad, o null si ya no existe.
+     * @return la respuesta 409.
+     */
+    public static ResponseEntity<VersionConflictDTO> versionConflict(String message, Long currentVersion) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.CONFLICT);
+        if (currentVersion != null) {
+            response.eTag(versionETag(currentVersion));
+        }
+        return response.body(new VersionConflictDTO(message, currentVersion));
+    }
+}
@@ -0,0 +1,74 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Envía un fichero (o un tramo de él) como cuerpo de la respuesta.
+ *
+ * Si el contenedor admite sendfile (Tomcat con el conector NIO lo anuncia con el atributo
+ * {@code org.apache.tomcat.sendfile.support}), se le indica el fichero y el tramo y es Tomcat quien lo
+ * envía al socket con {@link FileChannel#transferTo} cuando el hilo de la petición ya ha terminado;
+ * solo en ese caso el contenido no pasa por la memoria de la JVM.
+ *
+ * En otro caso, o para ficheros pequeños en los que no compensa, se copia a la salida de la respuesta
+ * por bloques: la salida del servlet no es un canal de fichero ni de socket, así que
+ * {@link FileChannel#transferTo} lee cada bloque en un buffer de la JVM antes de escribirlo.
+ */
+public final class FileTransfer {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Por debajo de este tamaño se escribe directamente, como el DefaultServlet de Tomcat (sendfileSize)
+    private static final long SENDFILE_THRESHOLD = 48 * 1024;
+
+    private FileTransfer() {
+    }
+
+    /**
+     * Envía los bytes {@code start..end} (ambos incluidos) del fichero. Las cabeceras, incluida
+     * Content-Length, deben estar ya establecidas.
+     *
+     * @param request  la petición actual.
+     * @param response la respuesta, aún sin cuerpo.
+     * @param file     el fichero.
+     * @param start    primer byte a enviar.
+     * @param end      último byte a enviar.
+     * @return true si el envío se ha delegado en el sendfile del contenedor.
+     * @throws IOException si falla la lectura del fichero o la escritura de la respuesta.
+     */
+    public static boolean send(HttpServletRequest request, HttpServletResponse response, Path file,
+                               long start, long end) throws IOException {
+        long length = end - start + 1;
+        if (length >= SENDFILE_THRESHOLD && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1); // Tomcat espera el final exclusivo
+            return true;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break; // El fichero se ha truncado mientras se enviaba
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,111 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureAlgorithm;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.interfaces.ECKey;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Conjunto de claves usadas para firmar y verificar tokens JWT.
+ *
+ * - La clave de firma activa se identifica con un {@code kid} que se incluye en la cabecera
+ *   de cada token emitido.
+ * - Las claves de verificación se indexan por {@code kid}, de modo que durante una rotación
+ *   los tokens firmados con la clave anterior siguen siendo válidos hasta que expiran.
+ *
+ * El algoritmo de firma se deduce del tipo de clave: RSA (RS256), EC (ES256/ES384/ES512
+ * según la curva) o Ed25519 (EdDSA).
+ */
+public class JwtKeyRing {
+
+    // Identificador de la clave de firma activa (claim de cabecera "kid")
+    private final String signingKeyId;
+
+    // Par de claves con el que se firman los nuevos tokens
+    private final KeyPair signingKeyPair;
+
+    // Algoritmo de firma correspondiente a la clave activa
+    private final SignatureAlgorithm signatureAlgorithm;
+
+    // Claves públicas aceptadas para verificar tokens, indexadas por "kid"
+    private final Map<String, PublicKey> verificationKeys;
+
+    /**
+     * @param signingKeyId     identificador de la clave de firma activa.
+     * @param signingKeyPair   par de claves con el que se firman los tokens.
+     * @param verificationKeys claves públicas aceptadas, indexadas por identificador
+     *                         (debe incluir la clave pública de firma).
+     */
+    public JwtKeyRing(String signingKeyId, KeyPair signingKeyPair, Map<String, PublicKey> verificationKeys) {
+        this.signingKeyId = signingKeyId;
+        this.signingKeyPair = signingKeyPair;
+        this.signatureAlgorithm = algorithmFor(signingKeyPair.getPrivate());
+        this.verificationKeys = Map.copyOf(verificationKeys);
+    }
+
+    public String getSigningKeyId() {
+        return signingKeyId;
+    }
+
+    public KeyPair getSigningKeyPair() {
+        return signingKeyPair;
+    }
+
+    public SignatureAlgorithm getSignatureAlgorithm() {
+        return signatureAlgorithm;
+    }
+
+    /**
+     * Busca la clave pública con la que verificar un token.
+     * Los tokens sin {@code kid} (emitidos antes de la rotación de claves) se verifican
+     * con la clave de firma activa.
+     *
+     * @param keyId el identificador de la cabecera del token, puede ser null.
+     * @return la clave pública correspondiente o null si el identificador no es conocido.
+     */
+    public PublicKey getVerificationKey(String keyId) {
+        if (keyId == null) {
+            return signingKeyPair.getPublic();
+        }
+        return verificationKeys.get(keyId);
+    }
+
+    /**
+     * @return los identificadores de todas las claves aceptadas para verificar tokens.
+     */
+    public Set<String> getVerificationKeyIds() {
+        return verificationKeys.keySet();
+    }
+
+    /**
+     * Deduce el algoritmo de firma JWS adecuado para una clave.
+     *
+     * @param key la clave privada o pública.
+     * @return el algoritmo de firma correspondiente.
+     * @throws IllegalArgumentException si el tipo de clave no está soportado.
+     */
+    public static SignatureAlgorithm algorithmFor(Key key) {
+        switch (key.getAlgorithm()) {
+            case "RSA":
+                return Jwts.SIG.RS256;
+            case "EC":
+                int fieldSize = ((ECKey) key).getParams().getCurve().getField().getFieldSize();
+                if (fieldSize <= 256) {
+                    return Jwts.SIG.ES256; // Curva P-256
+                } else if (fieldSize <= 384) {
+                    return Jwts.SIG.ES384; // Curva P-384
+                }
+                return Jwts.SIG.ES512; // Curva P-521
+            case "EdDSA":
+            case "Ed25519":
+                return Jwts.SIG.EdDSA;
+            default:
+                throw new IllegalArgumentException("Tipo de clave no soportado para JWT: " + key.getAlgorithm());
+        }
+    }
+}
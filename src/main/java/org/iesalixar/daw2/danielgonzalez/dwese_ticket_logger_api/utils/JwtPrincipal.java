@@ -0,0 +1,36 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils;
+
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Representación inmutable de un token JWT cuya firma ya ha sido verificada.
+ *
+ * Contiene únicamente la información que necesita la cadena de seguridad:
+ * - {@code subject} es el nombre de usuario (claim "sub").
+ * - {@code roles} son los roles incluidos en el claim "roles".
+ * - {@code issuedAt} es el instante de emisión del token (claim "iat").
+ * - {@code expiration} es el instante de expiración del token (claim "exp").
+ */
+@Value
+public class JwtPrincipal {
+
+    String subject;
+
+    List<String> roles;
+
+    Instant issuedAt;
+
+    Instant expiration;
+
+    /**
+     * Verifica si el token del que procede este principal ha expirado.
+     *
+     * @return true si el token ha expirado, false si aún es válido.
+     */
+    public boolean isExpired() {
+        return expiration.isBefore(Instant.now());
+    }
+}
@@ -0,0 +1,138 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache acotada de tokens JWT cuya firma ya ha sido verificada.
+ *
+ * Las entradas se indexan por el resumen SHA-256 del token (nunca por el token en claro)
+ * y caducan exactamente en el instante indicado por el claim "exp", de modo que cada
+ * token se verifica criptográficamente una sola vez por nodo mientras siga siendo válido.
+ * Los aciertos, fallos y el tamaño se publican como métricas de la cache {@code jwt.tokens}.
+ */
+@Component
+public class JwtTokenCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtTokenCache.class);
+
+    private final Cache<String, JwtPrincipal> cache;
+
+    /**
+     * Crea la cache con el tamaño máximo configurado.
+     *
+     * @param maxSize número máximo de tokens verificados que se mantienen en memoria.
+     */
+    public JwtTokenCache(@Value("${jwt.cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new PrincipalExpiry()) // Cada entrada caduca en el "exp" de su token
+                .recordStats() // Habilita los contadores de aciertos y fallos
+                .build();
+        logger.info("Cache de tokens JWT verificados configurada con un tamaño máximo de {}", maxSize);
+    }
+
+    /**
+     * Publica las estadísticas de la cache en el registro de métricas.
+     *
+     * @param registry el registro de métricas.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "jwt.tokens");
+    }
+
+    /**
+     * Devuelve el principal de un token previamente verificado.
+     *
+     * @param token el token JWT.
+     * @return el principal verificado o null si el token no está en la cache o ha expirado.
+     */
+    public JwtPrincipal get(String token) {
+        return cache.getIfPresent(digest(token));
+    }
+
+    /**
+     * Registra un token cuya firma ya ha sido verificada.
+     *
+     * @param token     el token JWT.
+     * @param principal el principal extraído del token tras verificar su firma.
+     */
+    public void put(String token, JwtPrincipal principal) {
+        cache.put(digest(token), principal);
+    }
+
+    /**
+     * @return número de peticiones resueltas desde la cache sin verificar la firma.
+     */
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    /**
+     * @return número de peticiones que han requerido verificar la firma del token.
+     */
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    /**
+     * @return número aproximado de tokens almacenados actualmente.
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Calcula el resumen SHA-256 del token codificado en Base64.
+     *
+     * @param token el token JWT.
+     * @return la clave con la que se indexa el token en la cache.
+     */
+    private String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] hash = md.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 está garantizado en toda JVM
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Política de expiración que hace caducar cada entrada en la fecha "exp" de su token.
+     */
+    private static class PrincipalExpiry implements Expiry<String, JwtPrincipal> {
+
+        @Override
+        public long expireAfterCreate(String key, JwtPrincipal principal, long currentTime) {
+            long remainingMillis = principal.getExpiration().toEpochMilli() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, JwtPrincipal principal, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, principal, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, JwtPrincipal principal, long currentTime, long currentDuration) {
+            return currentDuration; // La lectura no prolonga la vida del token
+        }
+    }
+}
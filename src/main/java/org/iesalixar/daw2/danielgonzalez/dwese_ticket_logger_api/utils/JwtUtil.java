@@ -1,24 +1,94 @@
 package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.ProtectedHeader;
 import io.jsonwebtoken.security.Keys;
-import org.springframework.beans.factory.annotation.Autowired;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
-import java.security.KeyPair;
+import java.security.Key;
+import java.time.Instant;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
-    @Autowired
-    private KeyPair jwtKeyPair;
+    private final JwtKeyRing jwtKeyRing; // Clave de firma activa y claves de verificación por "kid"
 
-    private static final long JWT_EXPIRATION = 3600000; // 1 hora
+    public static final long JWT_EXPIRATION = 3600000; // 1 hora
+
+    // Parser inmutable y seguro entre hilos, construido una única vez a partir de las claves públicas
+    private final JwtParser jwtParser;
+
+    // Tiempo de verificación de la firma de los tokens, según sean válidos o no
+    private final Timer validVerifications;
+    private final Timer invalidVerifications;
+
+    // Tiempo de firma de los tokens generados en el login
+    private final Timer signings;
+
+    /**
+     * Construye el parser de JJWT una sola vez al arrancar la aplicación,
+     * evitando crear un parser nuevo en cada verificación de token.
+     *
+     * El parser selecciona la clave pública según la cabecera "kid" del token, de modo que
+     * se aceptan tanto la clave de firma activa como las claves anteriores durante una rotación.
+     *
+     * @param jwtKeyRing el conjunto de claves JWT cargado del keystore.
+     * @param meterRegistry registro donde se publican los tiempos de verificación y firma.
+     */
+    public JwtUtil(JwtKeyRing jwtKeyRing, MeterRegistry meterRegistry) {
+        this.jwtKeyRing = jwtKeyRing;
+        this.validVerifications = verificationTimer(meterRegistry, "valid");
+        this.invalidVerifications = verificationTimer(meterRegistry, "invalid");
+        this.signings = Timer.builder("jwt.signing")
+                .description("Tiempo de firma de los tokens JWT")
+                .tag("algorithm", jwtKeyRing.getSignatureAlgorithm().getId())
+                .register(meterRegistry);
+        this.jwtParser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(ProtectedHeader header) {
+                        Key key = jwtKeyRing.getVerificationKey(header.getKeyId());
+                        if (key == null) {
+                            throw new JwtException("Clave de verificación desconocida: " + header.getKeyId());
+                        }
+                        return key; // Clave pública con la que verificar la firma
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Verifica y parsea el token una única vez, devolviendo un principal inmutable
+     * con el nombre de usuario, los roles y la fecha de expiración.
+     *
+     * @param token el token JWT.
+     * @return el principal verificado contenido en el token.
+     * @throws JwtException si la firma no es válida o el token ha expirado.
+     */
+    public JwtPrincipal parseToken(String token) {
+        Claims claims = extractAllClaims(token);
+        if (claims.getExpiration() == null) {
+            throw new JwtException("El token no contiene fecha de expiración.");
+        }
+        List<?> roles = claims.get("roles", List.class);
+        List<String> roleNames = roles == null
+                ? Collections.emptyList()
+                : roles.stream().map(String::valueOf).toList();
+        Instant issuedAt = claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null;
+        return new JwtPrincipal(claims.getSubject(), roleNames, issuedAt, claims.getExpiration().toInstant());
+    }
 
     /**
      * Extrae el nombre de usuario (claim "sub") del token.
@@ -46,18 +116,24 @@ public class JwtUtil {
     /**
      * Extrae todos los claims (payload) del token JWT.
      *
-     * Utiliza el parser de JJWT configurado con la clave pública del par de claves.
+     * Utiliza el parser de JJWT configurado con las claves públicas del keystore.
      * Este método valida la integridad y autenticidad del token antes de extraer los claims.
      *
      * @param token el token JWT.
      * @return los claims contenidos en el token.
      */
     public Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(jwtKeyPair.getPublic()) // Configura la clave para verificar la firma
-                .build()
-                .parseSignedClaims(token) // Verifica el token y lo parsea
-                .getPayload(); // Devuelve el cuerpo del JWT (claims)
+        long start = System.nanoTime();
+        try {
+            Claims claims = jwtParser
+                    .parseSignedClaims(token) // Verifica el token y lo parsea
+                    .getPayload(); // Devuelve el cuerpo del JWT (claims)
+            validVerifications.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return claims;
+        } catch (RuntimeException e) {
+            invalidVerifications.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
     }
 
     /**
@@ -71,13 +147,14 @@ public class JwtUtil {
      * @return el token JWT generado.
      */
     public String generateToken(String username, List<String> roles) {
-        return Jwts.builder()
+        return signings.record(() -> Jwts.builder()
+                .header().keyId(jwtKeyRing.getSigningKeyId()).and() // Identifica la clave de firma ("kid")
                 .subject(username) // Configura el claim "sub" (nombre de usuario)
                 .claim("roles", roles) // Incluye los roles como claim adicional
                 .issuedAt(new Date()) // Fecha de emisión del token
                 .expiration(new Date(System.currentTimeMillis() + JWT_EXPIRATION)) // Expira en 1 hora
-                .signWith(jwtKeyPair.getPrivate(), Jwts.SIG.RS256) // Firma el token con la clave secreta
-                .compact(); // Genera el token en formato JWT
+                .signWith(jwtKeyRing.getSigningKeyPair().getPrivate(), jwtKeyRing.getSignatureAlgorithm()) // RS256, ES256 o EdDSA según la clave
+                .compact()); // Genera el token en formato JWT
     }
 
     /**
@@ -90,16 +167,40 @@ public class JwtUtil {
      * @return true si el token es válido, false en caso contrario.
      */
     public boolean validateToken(String token, String username) {
-        Claims claims = Jwts.parser()
-                .verifyWith(jwtKeyPair.getPublic()) // Verifica la firma con la clave pública
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        Claims claims = extractAllClaims(token); // Verifica la firma con la clave pública
 
         // Verifica que el usuario coincida y que la fecha no haya expirado
         return username.equals(claims.getSubject()) && !isTokenExpired(claims);
     }
 
+    /**
+     * Valida un principal ya verificado sin volver a comprobar la firma del token:
+     * 1. Que el nombre de usuario del principal coincida con el esperado.
+     * 2. Que el token no haya expirado.
+     *
+     * @param principal el principal verificado del token JWT.
+     * @param username el nombre de usuario esperado.
+     * @return true si el principal es válido, false en caso contrario.
+     */
+    public boolean validateToken(JwtPrincipal principal, String username) {
+        return username.equals(principal.getSubject()) && !principal.isExpired();
+    }
+
+    /**
+     * Crea el temporizador de las verificaciones de firma con el resultado indicado.
+     *
+     * @param meterRegistry el registro de métricas.
+     * @param result "valid" o "invalid".
+     * @return el temporizador.
+     */
+    private Timer verificationTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("jwt.verification")
+                .description("Tiempo de verificación de la firma de los tokens JWT")
+                .tag("algorithm", jwtKeyRing.getSignatureAlgorithm().getId())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
     /**
      * Verifica si un token JWT ha expirado.
      *
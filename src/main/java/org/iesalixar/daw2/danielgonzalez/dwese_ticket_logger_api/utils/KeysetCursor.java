@@ -0,0 +1,51 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Posición de un listado paginado por cursor (keyset) ordenado por {@code (date, id)}.
+ *
+ * Se transmite a los clientes como un token opaco (Base64 URL-safe), de modo que pueden
+ * pedir la página siguiente sin conocer ni depender del criterio de ordenación interno.
+ */
+@Value
+public class KeysetCursor {
+
+    // Fecha del último elemento de la página anterior
+    Date date;
+
+    // Identificador del último elemento de la página anterior (desempata fechas iguales)
+    Long id;
+
+    /**
+     * Codifica el cursor como token opaco.
+     *
+     * @return el token de continuación.
+     */
+    public String encode() {
+        String raw = date.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un token de continuación.
+     *
+     * @param token el token recibido del cliente.
+     * @return el cursor correspondiente.
+     * @throws IllegalArgumentException si el token no es válido.
+     */
+    public static KeysetCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new KeysetCursor(new Date(Long.parseLong(raw.substring(0, separator))),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("El cursor de paginación no es válido.", e);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido en memoria para buscar productos por prefijos de las palabras de su nombre.
+ *
+ * - Cada nombre se normaliza con {@link TextNormalizer} y, para cada palabra, se indexan sus
+ *   prefijos de hasta {@code MAX_PREFIX_LENGTH} caracteres ("leche" -> "l", "le", ..., "leche").
+ * - Una búsqueda devuelve los productos en los que cada palabra de la consulta es prefijo de alguna
+ *   palabra del nombre, intersectando las listas de los prefijos (una consulta al mapa por palabra).
+ * - Los documentos se numeran en orden de inserción, así que las listas están ordenadas y los
+ *   resultados salen en ese orden, lo que permite paginarlos de forma estable.
+ *
+ * Las modificaciones marcan el documento anterior como borrado y añaden uno nuevo; los borrados
+ * se descartan al reconstruir el índice. Es seguro para varios hilos (lecturas concurrentes,
+ * escrituras exclusivas).
+ */
+public class ProductSearchIndex {
+
+    // Longitud máxima de los prefijos indexados; las palabras más largas se verifican sobre el nombre
+    public static final int MAX_PREFIX_LENGTH = 12;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Lista ordenada de documentos por prefijo
+    private final Map<String, IntList> postings = new HashMap<>();
+
+    // Documento vigente de cada producto
+    private final Map<Long, Integer> documentsByProduct = new HashMap<>();
+
+    // Identificador de producto y nombre normalizado de cada documento
+    private long[] productIds = new long[1024];
+    private String[] names = new String[1024];
+
+    private final BitSet deleted = new BitSet();
+
+    private int documentCount;
+
+    /**
+     * Resultado de una búsqueda: los identificadores de la página pedida y el número total
+     * de coincidencias, limitado al máximo indicado.
+     *
+     * @param productIds identificadores de los productos de la página.
+     * @param total      número de coincidencias encontradas (como mucho, el límite de la búsqueda).
+     */
+    public record Result(List<Long> productIds, int total) {
+    }
+
+    /**
+     * Añade o sustituye un producto en el índice.
+     *
+     * @param productId el identificador del producto.
+     * @param name      el nombre del producto.
+     */
+    public void put(long productId, String name) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+
+            int document = documentCount++;
+            if (document == productIds.length) {
+                productIds = Arrays.copyOf(productIds, document * 2);
+                names = Arrays.copyOf(names, document * 2);
+            }
+            String normalized = TextNormalizer.normalize(name);
+            productIds[document] = productId;
+            names[document] = normalized;
+            documentsByProduct.put(productId, document);
+
+            // Un mismo prefijo puede salir de varias palabras del nombre: se indexa una sola vez
+            Set<String> prefixes = new HashSet<>();
+            for (String token : TextNormalizer.tokenize(normalized)) {
+                for (int length = 1; length <= Math.min(token.length(), MAX_PREFIX_LENGTH); length++) {
+                    prefixes.add(token.substring(0, length));
+                }
+            }
+            for (String prefix : prefixes) {
+                postings.computeIfAbsent(prefix, key -> new IntList()).add(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Elimina un producto del índice.
+     *
+     * @param productId el identificador del producto.
+     */
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los productos cuyo nombre contiene, como prefijos de palabra, todas las palabras de la consulta.
+     *
+     * @param query      el texto buscado.
+     * @param offset     número de resultados a saltar (paginación).
+     * @param limit      número máximo de identificadores a devolver.
+     * @param maxResults número máximo de coincidencias a recorrer; el total devuelto no lo supera.
+     * @return los identificadores de la página y el total de coincidencias.
+     */
+    public Result search(String query, int offset, int limit, int maxResults) {
+        List<String> tokens = TextNormalizer.tokenize(query).stream().distinct().toList();
+        if (tokens.isEmpty()) {
+            return new Result(List.of(), 0);
+        }
+
+        lock.readLock().lock();
+        try {
+            List<IntList> lists = new ArrayList<>();
+            List<String> longTokens = new ArrayList<>();
+            for (String token : tokens) {
+                IntList list = postings.get(token.length() > MAX_PREFIX_LENGTH
+                        ? token.substring(0, MAX_PREFIX_LENGTH) : token);
+                if (list == null) {
+                    return new Result(List.of(), 0);
+                }
+                lists.add(list);
+                if (token.length() > MAX_PREFIX_LENGTH) {
+                    longTokens.add(token);
+                }
+            }
+            // Se recorre la lista más corta y se comprueba la pertenencia a las demás
+            lists.sort(Comparator.comparingInt(IntList::size));
+            IntList shortest = lists.get(0);
+
+            List<Long> page = new ArrayList<>();
+            int total = 0;
+            for (int i = 0; i < shortest.size() && total < maxResults; i++) {
+                int document = shortest.get(i);
+                if (deleted.get(document) || !containsAll(lists, document) || !matchesLongTokens(document, longTokens)) {
+                    continue;
+                }
+                if (total >= offset && page.size() < limit) {
+                    page.add(productIds[document]);
+                }
+                total++;
+            }
+            return new Result(page, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return el número de productos indexados.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentsByProduct.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return el número de documentos borrados que siguen ocupando memoria hasta reconstruir el índice.
+     */
+    public int deletedCount() {
+        lock.readLock().lock();
+        try {
+            return deleted.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Marca como borrado el documento vigente de un producto. Debe llamarse con el bloqueo de escritura.
+     *
+     * @param productId el identificador del producto.
+     */
+    private void removeDocument(long productId) {
+        Integer previous = documentsByProduct.remove(productId);
+        if (previous != null) {
+            deleted.set(previous);
+            names[previous] = null;
+        }
+    }
+
+    /**
+     * Comprueba si un documento está en todas las listas (la primera ya se está recorriendo).
+     */
+    private boolean containsAll(List<IntList> lists, int document) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(document)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Comprueba que las palabras de la consulta más largas que los prefijos indexados
+     * sean prefijo de alguna palabra del nombre del documento.
+     */
+    private boolean matchesLongTokens(int document, List<String> longTokens) {
+        if (longTokens.isEmpty()) {
+            return true;
+        }
+        List<String> words = TextNormalizer.tokenize(names[document]);
+        return longTokens.stream().allMatch(token -> words.stream().anyMatch(word -> word.startsWith(token)));
+    }
+
+    /**
+     * Lista creciente de enteros ordenados, sin objetos por elemento.
+     */
+    private static final class IntList {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean contains(int value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.ProductDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Árbol de prefijos (trie) en memoria para autocompletar nombres de productos.
+ *
+ * - Los nombres se normalizan con {@link TextNormalizer} (sin mayúsculas ni tildes) y sus palabras
+ *   se unen con un espacio, así "Café  Molido" se guarda como "cafe molido".
+ * - Cada producto se inserta una vez por cada palabra de su nombre, empezando en ella
+ *   ("cafe molido" y "molido"), para que también se sugiera al escribir una palabra intermedia.
+ * - Las claves se truncan a {@code MAX_DEPTH} caracteres; si la consulta es más larga,
+ *   los candidatos se comprueban contra el texto completo.
+ *
+ * Las sugerencias se obtienen bajando por la consulta y recorriendo el subárbol en orden
+ * alfabético hasta reunir el número pedido, sin consultar la base de datos. Es seguro para
+ * varios hilos (lecturas concurrentes, escrituras exclusivas).
+ */
+public class ProductSuggestTrie {
+
+    // Profundidad máxima del árbol; limita la memoria usada por los nombres largos
+    public static final int MAX_DEPTH = 24;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Node root = new Node();
+
+    // Entrada vigente de cada producto, para poder quitarla al modificarlo o eliminarlo
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    /**
+     * Producto guardado en el árbol junto con su nombre normalizado.
+     */
+    private record Entry(ProductDTO product, String text) {
+    }
+
+    /**
+     * Nodo del árbol. Los hijos se guardan en arrays ordenados por carácter, que ocupan
+     * mucho menos que un mapa por nodo y se recorren en orden alfabético.
+     */
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        // Productos cuya clave termina en este nodo (null si no hay ninguno)
+        private List<Entry> entries;
+
+        private Node child(char key) {
+            int position = Arrays.binarySearch(keys, key);
+            return position >= 0 ? children[position] : null;
+        }
+
+        private Node getOrAddChild(char key) {
+            int position = Arrays.binarySearch(keys, key);
+            if (position >= 0) {
+                return children[position];
+            }
+            int insertion = -position - 1;
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertion);
+            System.arraycopy(children, 0, newChildren, 0, insertion);
+            newKeys[insertion] = key;
+            newChildren[insertion] = new Node();
+            System.arraycopy(keys, insertion, newKeys, insertion + 1, keys.length - insertion);
+            System.arraycopy(children, insertion, newChildren, insertion + 1, children.length - insertion);
+            keys = newKeys;
+            children = newChildren;
+            return newChildren[insertion];
+        }
+
+        private void removeChild(char key) {
+            int position = Arrays.binarySearch(keys, key);
+            if (position < 0) {
+                return;
+            }
+            char[] newKeys = new char[keys.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, position);
+            System.arraycopy(children, 0, newChildren, 0, position);
+            System.arraycopy(keys, position + 1, newKeys, position, keys.length - position - 1);
+            System.arraycopy(children, position + 1, newChildren, position, children.length - position - 1);
+            keys = newKeys;
+            children = newChildren;
+        }
+
+        private boolean isEmpty() {
+            return keys.length == 0 && (entries == null || entries.isEmpty());
+        }
+    }
+
+    /**
+     * Añade o sustituye un producto en el árbol.
+     *
+     * @param product el producto con su identificador, nombre y precio.
+     */
+    public void put(ProductDTO product) {
+        String text = String.join(" ", TextNormalizer.tokenize(product.getName()));
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.remove(product.getId());
+            if (previous != null) {
+                removeEntry(previous);
+            }
+            if (text.isEmpty()) {
+                return;
+            }
+            Entry entry = new Entry(product, text);
+            entries.put(product.getId(), entry);
+            for (String key : keysOf(text)) {
+                Node node = root;
+                for (int i = 0; i < key.length(); i++) {
+                    node = node.getOrAddChild(key.charAt(i));
+                }
+                if (node.entries == null) {
+                    node.entries = new ArrayList<>(1);
+                }
+                node.entries.add(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita un producto del árbol.
+     *
+     * @param productId el identificador del producto.
+     */
+    public void remove(long productId) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.remove(productId);
+            if (previous != null) {
+                removeEntry(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sugiere productos cuyo nombre, o alguna de sus palabras, empieza por el texto escrito.
+     *
+     * @param query el texto escrito por el usuario.
+     * @param limit número máximo de sugerencias.
+     * @return los productos sugeridos, ordenados alfabéticamente por la parte que coincide.
+     */
+    public List<ProductDTO> suggest(String query, int limit) {
+        String prefix = String.join(" ", TextNormalizer.tokenize(query));
+        if (prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            int depth = Math.min(prefix.length(), MAX_DEPTH);
+            for (int i = 0; i < depth && node != null; i++) {
+                node = node.child(prefix.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            // Un producto puede llegar por varias palabras; se devuelve una sola vez
+            Map<Long, ProductDTO> results = new LinkedHashMap<>();
+            collect(node, prefix.length() > MAX_DEPTH ? prefix : null, limit, results);
+            return new ArrayList<>(results.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return el número de productos del árbol.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recorre un subárbol en preorden (primero las claves más cortas, luego los hijos en orden
+     * alfabético) hasta reunir el número de productos pedido.
+     *
+     * @param node    el nodo alcanzado con la consulta.
+     * @param verify  la consulta completa si es más larga que el árbol, o null si no hace falta comprobarla.
+     * @param limit   número máximo de productos.
+     * @param results productos encontrados, por identificador.
+     */
+    private void collect(Node node, String verify, int limit, Map<Long, ProductDTO> results) {
+        if (node.entries != null) {
+            for (Entry entry : node.entries) {
+                if (results.size() >= limit) {
+                    return;
+                }
+                if (verify == null || matches(entry.text(), verify)) {
+                    results.putIfAbsent(entry.product().getId(), entry.product());
+                }
+            }
+        }
+        for (Node child : node.children) {
+            if (results.size() >= limit) {
+                return;
+            }
+            collect(child, verify, limit, results);
+        }
+    }
+
+    /**
+     * Comprueba si el texto de un producto empieza por la consulta en el inicio de alguna palabra.
+     */
+    private boolean matches(String text, String query) {
+        for (int start = 0; start >= 0; start = nextWordStart(text, start)) {
+            if (text.startsWith(query, start)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Quita una entrada de todos sus nodos y elimina las ramas que se quedan vacías.
+     * Debe llamarse con el bloqueo de escritura.
+     */
+    private void removeEntry(Entry entry) {
+        for (String key : keysOf(entry.text())) {
+            Node[] path = new Node[key.length() + 1];
+            path[0] = root;
+            for (int i = 0; i < key.length() && path[i] != null; i++) {
+                path[i + 1] = path[i].child(key.charAt(i));
+            }
+            Node last = path[key.length()];
+            if (last == null || last.entries == null) {
+                continue;
+            }
+            last.entries.remove(entry);
+            if (last.entries.isEmpty()) {
+                last.entries = null;
+            }
+            for (int i = key.length(); i > 0 && path[i].isEmpty(); i--) {
+                path[i - 1].removeChild(key.charAt(i - 1));
+            }
+        }
+    }
+
+    /**
+     * Calcula las claves de un texto normalizado: una por cada palabra, desde ella hasta el final,
+     * truncada a {@code MAX_DEPTH} caracteres.
+     */
+    private static List<String> keysOf(String text) {
+        List<String> keys = new ArrayList<>();
+        for (int start = 0; start >= 0; start = nextWordStart(text, start)) {
+            String key = text.substring(start, Math.min(text.length(), start + MAX_DEPTH));
+            if (!keys.contains(key)) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * @return la posición de la siguiente palabra del texto, o -1 si no hay más.
+     */
+    private static int nextWordStart(String text, int from) {
+        int space = text.indexOf(' ', from);
+        return space < 0 ? -1 : space + 1;
+    }
+}
@@ -0,0 +1,167 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Cuenta las sentencias SQL que ejecuta el hilo actual mientras atiende una petición.
+ *
+ * Hibernate avisa de cada sentencia preparada ({@link #record(String)}) y el contador agrupa las
+ * sentencias por su forma (la SQL con los literales y las listas {@code IN} reducidos a {@code ?}),
+ * de modo que una misma consulta repetida con distintos parámetros, típica de un N+1, se detecta
+ * como una sola forma con muchas ejecuciones.
+ *
+ * Si se inicia con un presupuesto y en modo estricto, la sentencia que lo supera lanza
+ * {@link BudgetExceededException}, lo que hace fallar la petición (pensado para los tests).
+ * Los controladores que capturan {@code Exception} la convierten en su propia respuesta de error,
+ * así que además se vuelve a lanzar antes de escribir la respuesta (SqlBudgetResponseAdvice).
+ */
+public final class SqlStatementCounter {
+
+    private static final ThreadLocal<SqlStatementCounter> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // Número máximo de sentencias permitidas (0 = sin límite)
+    private final int budget;
+
+    // Si es true, superar el presupuesto hace fallar la sentencia
+    private final boolean enforce;
+
+    private int total;
+
+    // Ejecuciones de cada forma de sentencia
+    private final Map<String, Integer> shapes = new HashMap<>();
+
+    private SqlStatementCounter(int budget, boolean enforce) {
+        this.budget = budget;
+        this.enforce = enforce;
+    }
+
+    /**
+     * Empieza a contar las sentencias del hilo actual, descartando un contador anterior.
+     *
+     * @param budget  número máximo de sentencias (0 = sin límite).
+     * @param enforce si es true, la sentencia que supera el presupuesto lanza una excepción.
+     * @return el contador iniciado.
+     */
+    public static SqlStatementCounter start(int budget, boolean enforce) {
+        SqlStatementCounter counter = new SqlStatementCounter(budget, enforce);
+        CURRENT.set(counter);
+        return counter;
+    }
+
+    /**
+     * Deja de contar las sentencias del hilo actual.
+     *
+     * @return el contador terminado o null si no había ninguno.
+     */
+    public static SqlStatementCounter stop() {
+        SqlStatementCounter counter = CURRENT.get();
+        CURRENT.remove();
+        return counter;
+    }
+
+    /**
+     * @return el contador del hilo actual o null si no se están contando sus sentencias.
+     */
+    public static SqlStatementCounter current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Registra una sentencia en el contador del hilo actual, si lo hay.
+     *
+     * @param sql la sentencia preparada.
+     * @throws BudgetExceededException si se supera el presupuesto en modo estricto.
+     */
+    public static void record(String sql) {
+        SqlStatementCounter counter = CURRENT.get();
+        if (counter != null) {
+            counter.add(sql);
+        }
+    }
+
+    /**
+     * Reduce una sentencia a su forma: sin literales, con las listas {@code IN} agrupadas
+     * y con los espacios normalizados.
+     *
+     * @param sql la sentencia.
+     * @return la forma de la sentencia.
+     */
+    public static String shapeOf(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("(?...)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    private void add(String sql) {
+        total++;
+        shapes.merge(shapeOf(sql), 1, Integer::sum);
+        if (enforce && isOverBudget()) {
+            throw new BudgetExceededException("Presupuesto de sentencias SQL superado: " + total
+                    + " sentencias (máximo " + budget + "). Última: " + sql);
+        }
+    }
+
+    /**
+     * @return true si superar el presupuesto hace fallar la petición.
+     */
+    public boolean isEnforced() {
+        return enforce;
+    }
+
+    /**
+     * @return el número de sentencias ejecutadas.
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * @return el presupuesto de sentencias (0 = sin límite).
+     */
+    public int getBudget() {
+        return budget;
+    }
+
+    /**
+     * @return true si se han ejecutado más sentencias de las permitidas.
+     */
+    public boolean isOverBudget() {
+        return budget > 0 && total > budget;
+    }
+
+    /**
+     * Obtiene las formas de sentencia ejecutadas al menos el número de veces indicado,
+     * de más a menos repetida.
+     *
+     * @param threshold número mínimo de ejecuciones.
+     * @return las formas repetidas con su número de ejecuciones.
+     */
+    public Map<String, Integer> getRepeated(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        shapes.entrySet().stream()
+                .filter(entry -> entry.getValue() >= threshold)
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .forEach(entry -> repeated.put(entry.getKey(), entry.getValue()));
+        return repeated;
+    }
+
+    /**
+     * Se lanza al superar el presupuesto de sentencias en modo estricto. No extiende
+     * {@link IllegalStateException} para que Spring no la traduzca a una excepción de acceso a datos.
+     */
+    public static class BudgetExceededException extends RuntimeException {
+
+        public BudgetExceededException(String message) {
+            super(message);
+        }
+    }
+}
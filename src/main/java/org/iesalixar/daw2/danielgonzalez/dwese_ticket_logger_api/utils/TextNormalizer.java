@@ -0,0 +1,53 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Utilidades para normalizar texto en las búsquedas: minúsculas, sin tildes ni diéresis
+ * y dividido en palabras, de modo que "Café" y "cafe" se consideren iguales.
+ */
+public final class TextNormalizer {
+
+    // Marcas diacríticas que quedan separadas de su letra tras la descomposición NFD
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    // Cualquier secuencia de caracteres que no sean letras ni dígitos separa palabras
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Pasa un texto a minúsculas y elimina sus tildes y diéresis.
+     *
+     * @param text el texto original.
+     * @return el texto normalizado, o una cadena vacía si es null.
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Normaliza un texto y lo divide en palabras.
+     *
+     * @param text el texto original.
+     * @return las palabras normalizadas, en orden y sin vacías.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(normalize(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -3,7 +3,8 @@ CREATE TABLE IF NOT EXISTS regions (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     code VARCHAR(2) NOT NULL UNIQUE,
     name VARCHAR(100) NOT NULL,
-    image VARCHAR(100)
+    image VARCHAR(100),
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 -- Crear tabla de provincias
@@ -12,6 +13,7 @@ CREATE TABLE IF NOT EXISTS provinces (
     code VARCHAR(2) NOT NULL UNIQUE,
     name VARCHAR(100) NOT NULL,
     region_id BIGINT NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT fk_provinces_region FOREIGN KEY (region_id) REFERENCES regions(id) ON DELETE CASCADE
 );
 
@@ -38,17 +40,35 @@ CREATE TABLE IF NOT EXISTS tickets (
     date DATETIME NOT NULL,
     discount DECIMAL(5, 2) NOT NULL,
     location_id BIGINT NOT NULL,
+    subtotal DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    total DECIMAL(12, 2) NOT NULL DEFAULT 0,
+    version BIGINT NOT NULL DEFAULT 0,
     CONSTRAINT fk_tickets_location FOREIGN KEY (location_id) REFERENCES locations(id)
 );
 
+-- Columnas de totales para las bases de datos creadas antes de persistirlos (rellenar con tickets.totals.backfill)
+ALTER TABLE tickets ADD COLUMN IF NOT EXISTS subtotal DECIMAL(12, 2) NOT NULL DEFAULT 0;
+ALTER TABLE tickets ADD COLUMN IF NOT EXISTS total DECIMAL(12, 2) NOT NULL DEFAULT 0;
+
+-- Columnas de version (bloqueo optimista) para las bases de datos creadas antes de anadirlas
+ALTER TABLE regions ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE provinces ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE tickets ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+-- Indice compuesto para la paginacion por cursor de tickets ordenados por (date, id)
+CREATE INDEX IF NOT EXISTS idx_tickets_date_id ON tickets (date, id);
+
 -- Crear la tabla 'products'
 CREATE TABLE IF NOT EXISTS products (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     name VARCHAR(255) NOT NULL,
-    price DECIMAL(10, 2) NOT NULL
+    price DECIMAL(10, 2) NOT NULL,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
--- Crear la tabla 'product_ticket'
+ALTER TABLE products ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+-- Crear la tabla 'product_ticket' (obsoleta, sustituida por 'ticket_lines'; se conserva para migrar datos antiguos)
 CREATE TABLE IF NOT EXISTS product_ticket (
     product_id BIGINT NOT NULL,
     ticket_id BIGINT NOT NULL,
@@ -57,6 +77,34 @@ CREATE TABLE IF NOT EXISTS product_ticket (
     FOREIGN KEY (ticket_id) REFERENCES tickets(id)
 );
 
+-- Crear la tabla 'ticket_lines' (lineas de ticket con cantidad y precio unitario en la compra)
+CREATE TABLE IF NOT EXISTS ticket_lines (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    ticket_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity INT NOT NULL DEFAULT 1,
+    unit_price DECIMAL(10, 2) NOT NULL,
+    CONSTRAINT uk_ticket_lines_ticket_product UNIQUE (ticket_id, product_id),
+    CONSTRAINT fk_ticket_lines_ticket FOREIGN KEY (ticket_id) REFERENCES tickets(id) ON DELETE CASCADE,
+    CONSTRAINT fk_ticket_lines_product FOREIGN KEY (product_id) REFERENCES products(id)
+);
+
+-- Migrar las asociaciones antiguas de 'product_ticket' a 'ticket_lines' y vaciarla para no repetirlas
+INSERT IGNORE INTO ticket_lines (ticket_id, product_id, quantity, unit_price)
+SELECT pt.ticket_id, pt.product_id, 1, p.price
+FROM product_ticket pt JOIN products p ON p.id = pt.product_id;
+DELETE FROM product_ticket;
+
+-- Crear la tabla 'id_generators' (identificadores de tickets y lineas reservados por bloques para insertar en lotes)
+CREATE TABLE IF NOT EXISTS id_generators (
+    name VARCHAR(50) PRIMARY KEY,
+    next_val BIGINT NOT NULL
+);
+
+-- Inicializar cada generador por encima del mayor identificador existente (solo la primera vez)
+INSERT IGNORE INTO id_generators (name, next_val) SELECT 'tickets', COALESCE(MAX(id), 0) + 1 FROM tickets;
+INSERT IGNORE INTO id_generators (name, next_val) SELECT 'ticket_lines', COALESCE(MAX(id), 0) + 1 FROM ticket_lines;
+
 -- Crear la tabla 'users'
 CREATE TABLE IF NOT EXISTS users (
     id BIGINT PRIMARY KEY AUTO_INCREMENT,
@@ -0,0 +1,134 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.config;
+
+import jakarta.servlet.ServletException;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Product;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Ticket;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.LocationRepository;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.ProductRepository;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.TicketRepository;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.JwtUtil;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils.SqlStatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Comprueba el presupuesto de sentencias SQL en modo estricto ({@code sql.budget.enforce=true},
+ * activo en el perfil de test): un endpoint dentro de su presupuesto responde con normalidad y uno
+ * que lo supera hace fallar la petición aunque el controlador capture la excepción.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(SqlBudgetEnforcementTests.OverBudgetController.class)
+class SqlBudgetEnforcementTests {
+
+    // Ubicación propia de este test, fuera del rango de los datos iniciales
+    private static final long LOCATION_ID = 9102;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private String authorization;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT IGNORE INTO supermarkets (id, name) VALUES (?, ?)", LOCATION_ID, "Supermercado de prueba");
+        jdbcTemplate.update("INSERT IGNORE INTO locations (id, address, city, supermarket_id, province_id) VALUES (?, ?, ?, ?, 1)",
+                LOCATION_ID, "Calle de prueba 2", "Sevilla", LOCATION_ID);
+        authorization = "Bearer " + jwtUtil.generateToken("normal", List.of("ROLE_USER"));
+    }
+
+    @Test
+    void endpointWithinBudgetResponds() throws Exception {
+        Long ticketId = createTicket(3);
+
+        // GET /api/tickets/{id} tiene un presupuesto de una sentencia
+        mockMvc.perform(get("/api/tickets/{id}", ticketId).header(HttpHeaders.AUTHORIZATION, authorization))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lines.length()").value(3));
+    }
+
+    @Test
+    void endpointOverBudgetFailsEvenIfTheControllerCatchesTheException() {
+        ServletException failure = assertThrows(ServletException.class, () ->
+                mockMvc.perform(get("/api/test/sql-budget").header(HttpHeaders.AUTHORIZATION, authorization)));
+        assertInstanceOf(SqlStatementCounter.BudgetExceededException.class, failure.getCause());
+    }
+
+    /**
+     * Crea un ticket con el número de líneas indicado, cada una de un producto distinto.
+     */
+    private Long createTicket(int lines) {
+        Ticket ticket = new Ticket();
+        ticket.setDate(new Date());
+        ticket.setDiscount(BigDecimal.ZERO);
+        ticket.setLocation(locationRepository.getReferenceById(LOCATION_ID));
+        for (int i = 0; i < lines; i++) {
+            Product product = new Product();
+            product.setName("Producto de prueba " + System.nanoTime());
+            product.setPrice(new BigDecimal("2.00"));
+            ticket.addLine(productRepository.save(product), 1);
+        }
+        return ticketRepository.save(ticket).getId();
+    }
+
+    /**
+     * Endpoint de prueba que ejecuta dos consultas con un presupuesto de una y, como los
+     * controladores de la aplicación, captura cualquier excepción para responder 500.
+     */
+    @RestController
+    static class OverBudgetController {
+
+        @Autowired
+        private TicketRepository ticketRepository;
+
+        @GetMapping("/api/test/sql-budget")
+        @SqlBudget(1)
+        public ResponseEntity<?> twoQueries() {
+            try {
+                long tickets = ticketRepository.count();
+                Long maxId = ticketRepository.findMaxId();
+                return ResponseEntity.ok(tickets + " " + maxId);
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al consultar los tickets.");
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.TicketDetailDTO;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Product;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.entities.Ticket;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.mapper.TicketMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comprueba que el detalle de un ticket ({@code findDetailById} + {@code toDetailDTO}, como en
+ * {@code GET /api/tickets/{id}}) se obtiene con una única sentencia SQL, tenga las líneas que tenga.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class TicketDetailStatementsTests {
+
+    // Ubicación propia de este test, fuera del rango de los datos iniciales
+    private static final long LOCATION_ID = 9101;
+
+    @Autowired
+    private TicketRepository ticketRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private TicketMapper ticketMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void createLocation() {
+        jdbcTemplate.update("INSERT IGNORE INTO supermarkets (id, name) VALUES (?, ?)", LOCATION_ID, "Supermercado de prueba");
+        jdbcTemplate.update("INSERT IGNORE INTO locations (id, address, city, supermarket_id, province_id) VALUES (?, ?, ?, ?, 1)",
+                LOCATION_ID, "Calle de prueba 1", "Sevilla", LOCATION_ID);
+    }
+
+    @Test
+    void ticketDetailIsLoadedWithOneStatementWhateverItsLines() {
+        Long oneLine = createTicket(1);
+        Long sixLines = createTicket(6);
+
+        assertEquals(1, statementsToLoadDetail(oneLine));
+        assertEquals(1, statementsToLoadDetail(sixLines));
+    }
+
+    /**
+     * Crea un ticket con el número de líneas indicado, cada una de un producto distinto.
+     */
+    private Long createTicket(int lines) {
+        Ticket ticket = new Ticket();
+        ticket.setDate(new Date());
+        ticket.setDiscount(BigDecimal.ZERO);
+        ticket.setLocation(locationRepository.getReferenceById(LOCATION_ID));
+        for (int i = 0; i < lines; i++) {
+            Product product = new Product();
+            product.setName("Producto de prueba " + System.nanoTime());
+            product.setPrice(new BigDecimal("1.50"));
+            ticket.addLine(productRepository.save(product), i + 1);
+        }
+        return ticketRepository.save(ticket).getId();
+    }
+
+    /**
+     * Construye el detalle del ticket fuera de una transacción, como el controlador, y devuelve
+     * el número de sentencias preparadas. Una relación no cargada fallaría con LazyInitializationException.
+     */
+    private long statementsToLoadDetail(Long ticketId) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        TicketDetailDTO detail = ticketMapper.toDetailDTO(ticketRepository.findDetailById(ticketId).orElseThrow());
+        long statements = statistics.getPrepareStatementCount();
+        assertEquals(ticketId, detail.getId());
+        return statements;
+    }
+}
@@ -0,0 +1,90 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.services;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.ProductDTO;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.events.ProductChangedEvent;
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.repositories.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Comprueba que los cambios de productos confirmados mientras se recargan la búsqueda y el
+ * autocompletado no se pierden al sustituir las estructuras en memoria.
+ */
+class ProductCatalogLoaderTests {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+
+    private final ProductCatalogLoader loader = new ProductCatalogLoader();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(loader, "productRepository", productRepository);
+        ReflectionTestUtils.setField(loader, "transactionManager", mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void loadsSearchIndexAndSuggestTrieFromOneRead() {
+        when(productRepository.streamAllAsDTO()).thenReturn(Stream.of(product(1, "Queso curado"), product(2, "Pan")));
+
+        loader.reload();
+
+        assertEquals(List.of(1L), loader.searchIndex().search("queso", 0, 10, 100).productIds());
+        assertEquals(List.of(2L), ids(loader.suggestTrie().suggest("pa", 10)));
+        verify(productRepository, times(1)).streamAllAsDTO();
+    }
+
+    @Test
+    void replaysChangesCommittedDuringTheReload() {
+        // La lectura ya ha devuelto el producto 1 con su nombre antiguo cuando se confirman los cambios
+        Stream<ProductDTO> products = Stream.of(product(1, "Queso curado"), product(2, "Pan"), product(3, "Leche"))
+                .peek(product -> {
+                    if (product.getId() == 2) {
+                        loader.onProductChanged(new ProductChangedEvent(this, 1L, "Queso viejo", new BigDecimal("3.00")));
+                        loader.onProductChanged(new ProductChangedEvent(this, 3L, null, null));
+                        loader.onProductChanged(new ProductChangedEvent(this, 4L, "Pan integral", new BigDecimal("1.20")));
+                    }
+                });
+        when(productRepository.streamAllAsDTO()).thenReturn(products);
+
+        loader.reload();
+
+        assertEquals(List.of(1L), loader.searchIndex().search("viejo", 0, 10, 100).productIds());
+        assertEquals(List.of(), loader.searchIndex().search("curado", 0, 10, 100).productIds());
+        assertEquals(List.of(), loader.searchIndex().search("leche", 0, 10, 100).productIds());
+        assertEquals(List.of(2L, 4L), loader.searchIndex().search("pan", 0, 10, 100).productIds());
+        assertEquals(List.of(1L), ids(loader.suggestTrie().suggest("queso v", 10)));
+        assertEquals(List.of(), ids(loader.suggestTrie().suggest("leche", 10)));
+        assertEquals(3, loader.suggestTrie().size());
+    }
+
+    @Test
+    void appliesChangesOutsideAReload() {
+        when(productRepository.streamAllAsDTO()).thenReturn(Stream.of(product(1, "Queso curado")));
+        loader.reload();
+
+        loader.onProductChanged(new ProductChangedEvent(this, 1L, null, null));
+
+        assertEquals(0, loader.searchIndex().size());
+        assertEquals(0, loader.suggestTrie().size());
+    }
+
+    private static ProductDTO product(long id, String name) {
+        return new ProductDTO(id, name, new BigDecimal("1.00"));
+    }
+
+    private static List<Long> ids(List<ProductDTO> products) {
+        return products.stream().map(ProductDTO::getId).toList();
+    }
+}
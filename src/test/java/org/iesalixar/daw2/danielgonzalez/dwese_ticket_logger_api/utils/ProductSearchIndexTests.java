@@ -0,0 +1,114 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comprueba las búsquedas del índice invertido de productos: normalización, consultas de varias
+ * palabras, palabras más largas que los prefijos indexados, sustituciones y paginación.
+ */
+class ProductSearchIndexTests {
+
+    @Test
+    void ignoresCaseAndAccents() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.put(1, "Café Molido");
+        index.put(2, "CAFETERA");
+
+        assertEquals(List.of(1L, 2L), index.search("cafe", 0, 10, 100).productIds());
+        assertEquals(List.of(1L), index.search("MOLÍDO", 0, 10, 100).productIds());
+        assertEquals(List.of(1L, 2L), index.search("CÁF", 0, 10, 100).productIds());
+    }
+
+    @Test
+    void everyQueryWordMustPrefixSomeNameWord() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.put(1, "Leche entera");
+        index.put(2, "Leche desnatada");
+        index.put(3, "Yogur entero");
+
+        assertEquals(List.of(1L), index.search("le ent", 0, 10, 100).productIds());
+        assertEquals(List.of(1L), index.search("entera leche", 0, 10, 100).productIds());
+        assertEquals(List.of(1L, 3L), index.search("ent", 0, 10, 100).productIds());
+        assertEquals(List.of(), index.search("leche yogur", 0, 10, 100).productIds());
+        // Las palabras se buscan como prefijos, no como subcadenas
+        assertEquals(List.of(), index.search("natada", 0, 10, 100).productIds());
+    }
+
+    @Test
+    void checksQueryWordsLongerThanTheIndexedPrefixes() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.put(1, "Desoxirribonucleico");
+        index.put(2, "Desoxirribonato");
+        String longQuery = "desoxirribonu";
+        assertEquals(ProductSearchIndex.MAX_PREFIX_LENGTH + 1, longQuery.length());
+
+        // Los dos nombres comparten los 12 primeros caracteres: el índice los encuentra y se descarta el segundo
+        assertEquals(List.of(1L), index.search(longQuery, 0, 10, 100).productIds());
+        assertEquals(1, index.search(longQuery, 0, 10, 100).total());
+        assertEquals(List.of(1L), index.search("desoxirribonucleico", 0, 10, 100).productIds());
+        assertEquals(List.of(), index.search("desoxirribonucleicos", 0, 10, 100).productIds());
+    }
+
+    @Test
+    void removeAndPutReplaceTheIndexedName() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.put(1, "Queso curado");
+        index.put(2, "Queso fresco");
+
+        index.put(1, "Jamón serrano");
+        assertEquals(List.of(2L), index.search("queso", 0, 10, 100).productIds());
+        assertEquals(List.of(1L), index.search("jamon", 0, 10, 100).productIds());
+        assertEquals(2, index.size());
+        assertEquals(1, index.deletedCount());
+
+        index.remove(2);
+        assertEquals(List.of(), index.search("queso", 0, 10, 100).productIds());
+        assertEquals(1, index.size());
+
+        // Al volver a añadirlo queda detrás del resto, en orden de inserción
+        index.put(2, "Jamón cocido");
+        assertEquals(List.of(1L, 2L), index.search("jamon", 0, 10, 100).productIds());
+        assertEquals(2, index.deletedCount());
+    }
+
+    @Test
+    void pagesWithinTheMaximumNumberOfResults() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        for (long id = 1; id <= 10; id++) {
+            index.put(id, "Agua " + id);
+        }
+
+        ProductSearchIndex.Result page = index.search("agua", 2, 3, 100);
+        assertEquals(List.of(3L, 4L, 5L), page.productIds());
+        assertEquals(10, page.total());
+
+        // El total se corta en maxResults y la página no pasa de ese límite
+        page = index.search("agua", 4, 3, 6);
+        assertEquals(List.of(5L, 6L), page.productIds());
+        assertEquals(6, page.total());
+
+        page = index.search("agua", 6, 3, 6);
+        assertEquals(List.of(), page.productIds());
+        assertEquals(6, page.total());
+
+        // Los documentos borrados no cuentan para el total ni para el desplazamiento
+        index.remove(1);
+        index.remove(2);
+        page = index.search("agua", 0, 2, 100);
+        assertEquals(List.of(3L, 4L), page.productIds());
+        assertEquals(8, page.total());
+    }
+
+    @Test
+    void emptyQueryFindsNothing() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.put(1, "Pan");
+
+        assertEquals(0, index.search("  ", 0, 10, 100).total());
+        assertEquals(0, index.search("", 0, 10, 100).total());
+    }
+}
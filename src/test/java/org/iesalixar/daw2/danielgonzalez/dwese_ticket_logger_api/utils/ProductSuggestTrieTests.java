@@ -0,0 +1,94 @@
+package org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.utils;
+
+import org.iesalixar.daw2.danielgonzalez.dwese_ticket_logger_api.dtos.ProductDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Comprueba las sugerencias del árbol de prefijos de productos: normalización, palabras
+ * intermedias, consultas más largas que el árbol, sustituciones y límite de resultados.
+ */
+class ProductSuggestTrieTests {
+
+    @Test
+    void ignoresCaseAccentsAndRepeatedSpaces() {
+        ProductSuggestTrie trie = new ProductSuggestTrie();
+        trie.put(product(1, "Café  Molido"));
+
+        assertEquals(List.of(1L), ids(trie.suggest("CAFÉ", 10)));
+        assertEquals(List.of(1L), ids(trie.suggest("cafe   mol", 10)));
+        assertEquals(List.of(), ids(trie.suggest("cafemol", 10)));
+    }
+
+    @Test
+    void suggestsFromAnyWordAndInAlphabeticalOrder() {
+        ProductSuggestTrie trie = new ProductSuggestTrie();
+        trie.put(product(1, "Leche entera"));
+        trie.put(product(2, "Leche desnatada"));
+        trie.put(product(3, "Yogur entero"));
+
+        assertEquals(List.of(2L, 1L), ids(trie.suggest("leche", 10)));
+        assertEquals(List.of(1L), ids(trie.suggest("leche e", 10)));
+        assertEquals(List.of(1L, 3L), ids(trie.suggest("ent", 10)));
+        assertEquals(List.of(), ids(trie.suggest("entera leche", 10)));
+    }
+
+    @Test
+    void checksQueriesLongerThanTheTree() {
+        ProductSuggestTrie trie = new ProductSuggestTrie();
+        trie.put(product(1, "Aceite de oliva virgen extra"));
+        trie.put(product(2, "Aceite de oliva virgen ecológico"));
+        // Las dos claves se truncan en el mismo nodo; el resto de la consulta se comprueba con el nombre
+        assertEquals(ProductSuggestTrie.MAX_DEPTH, "aceite de oliva virgen e".length());
+
+        assertEquals(List.of(1L), ids(trie.suggest("aceite de oliva virgen extra", 10)));
+        assertEquals(List.of(2L), ids(trie.suggest("Aceite de oliva virgen eco", 10)));
+        assertEquals(List.of(), ids(trie.suggest("aceite de oliva virgen extra fina", 10)));
+        assertEquals(List.of(1L), ids(trie.suggest("oliva virgen extra", 10)));
+    }
+
+    @Test
+    void removeAndPutReplaceTheSuggestedName() {
+        ProductSuggestTrie trie = new ProductSuggestTrie();
+        trie.put(product(1, "Queso curado"));
+        trie.put(product(2, "Queso fresco"));
+
+        trie.put(product(1, "Jamón serrano"));
+        assertEquals(List.of(2L), ids(trie.suggest("queso", 10)));
+        assertEquals(List.of(1L), ids(trie.suggest("serr", 10)));
+        assertEquals(2, trie.size());
+
+        trie.remove(2);
+        assertEquals(List.of(), ids(trie.suggest("q", 10)));
+        assertEquals(1, trie.size());
+
+        trie.put(product(2, "Queso azul"));
+        assertEquals(List.of(2L), ids(trie.suggest("queso", 10)));
+        assertEquals(new BigDecimal("1.50"), trie.suggest("queso", 10).get(0).getPrice());
+    }
+
+    @Test
+    void returnsEachProductOnceUpToTheLimit() {
+        ProductSuggestTrie trie = new ProductSuggestTrie();
+        trie.put(product(1, "Pan pan"));
+        trie.put(product(2, "Panceta"));
+        trie.put(product(3, "Pandoro"));
+
+        assertEquals(List.of(1L, 2L, 3L), ids(trie.suggest("pan", 10)));
+        assertEquals(List.of(1L, 2L), ids(trie.suggest("pan", 2)));
+        assertEquals(List.of(), ids(trie.suggest("pan", 0)));
+        assertEquals(List.of(), ids(trie.suggest(" ", 10)));
+    }
+
+    private static ProductDTO product(long id, String name) {
+        return new ProductDTO(id, name, new BigDecimal("1.50"));
+    }
+
+    private static List<Long> ids(List<ProductDTO> products) {
+        return products.stream().map(ProductDTO::getId).toList();
+    }
+}